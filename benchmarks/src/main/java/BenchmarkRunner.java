@@ -0,0 +1,21 @@
+import java.util.Arrays;
+
+/// Entry point of `benchmarks.jar`. Runs JMH with the GC profiler enabled, unless a profiler is given explicitly.
+///
+/// ```
+/// java -jar benchmarks/target/benchmarks.jar                  # all benchmarks, with -prof gc
+/// java -jar benchmarks/target/benchmarks.jar processTick -p mapSize=100
+///```
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-prof")) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String[] withProfiler = Arrays.copyOf(args, args.length + 2);
+        withProfiler[args.length] = "-prof";
+        withProfiler[args.length + 1] = "gc";
+        org.openjdk.jmh.Main.main(withProfiler);
+    }
+}
@@ -0,0 +1,190 @@
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.connection.client.ConnectedClientConfig;
+import dev.zwazel.internal.game.lobby.TeamConfig;
+import dev.zwazel.internal.game.map.MapDefinition;
+import dev.zwazel.internal.game.state.ClientState;
+import dev.zwazel.internal.game.tank.Tank;
+import dev.zwazel.internal.game.tank.TankConfig;
+import dev.zwazel.internal.game.transform.Transform;
+import dev.zwazel.internal.game.transform.Vec3;
+import dev.zwazel.internal.message.MessageContainer;
+import dev.zwazel.internal.message.MessageData;
+import dev.zwazel.internal.message.data.GameConfig;
+import dev.zwazel.internal.message.data.SimpleTextMessage;
+import dev.zwazel.internal.message.data.TeamScored;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static dev.zwazel.internal.message.MessageTarget.Type.CLIENT;
+
+/// A synthetic, offline game world for the benchmarks. No server connection is involved.
+///
+/// [PublicGameWorld] and [Tank] are implemented with dynamic proxies that answer the calls a bot makes
+/// during a tick; the library's records are created with [RecordFactory]. Everything is seeded, so every
+/// fork of a benchmark sees the same map, positions and messages.
+final class OfflineWorldFixture {
+    static final long MY_CLIENT_ID = 1;
+    static final String MY_TEAM = "Red";
+    static final String ENEMY_TEAM = "Blue";
+    static final float TICK_RATE = 60;
+
+    final MapDefinition mapDefinition;
+    final GameConfig gameConfig;
+    final TankConfig tankConfig;
+    final PublicGameWorld world;
+    final List<ConnectedClientConfig> clients = new ArrayList<>();
+    final Map<Long, ClientState> states = new HashMap<>();
+    final List<MessageContainer> incomingMessages = new ArrayList<>();
+
+    private final int mapSize;
+    private final Random random;
+    private long tick;
+    private long sentMessages;
+    private long tankCommands;
+
+    OfflineWorldFixture(int mapSize, int playersPerTeam, int incomingMessageCount, long seed) {
+        this.mapSize = mapSize;
+        this.random = new Random(seed);
+
+        float[][] tiles = new float[mapSize][mapSize];
+        for (int z = 0; z < mapSize; z++) {
+            for (int x = 0; x < mapSize; x++) {
+                // Rolling hills, so the height-aware path costs and the line of fire check have something to do
+                tiles[z][x] = (float) (2 + Math.sin(x * 0.3) * Math.cos(z * 0.2) * 2);
+            }
+        }
+        mapDefinition = RecordFactory.builder(MapDefinition.class)
+                .setNumber(MapDefinition::width, mapSize)
+                .setNumber(MapDefinition::depth, mapSize)
+                .set(MapDefinition::tiles, tiles)
+                .build();
+
+        tankConfig = RecordFactory.builder(TankConfig.class)
+                .setNumber(TankConfig::projectileSpeed, 30f)
+                .setNumber(TankConfig::projectileGravity, 18f)
+                .setNumber(TankConfig::projectileDamage, 25f)
+                .setNumber(TankConfig::bodyRotationSpeed, 1f)
+                .setNumber(TankConfig::turretMinPitch, -Math.PI / 2)
+                .setNumber(TankConfig::turretMaxPitch, Math.PI / 2)
+                .set(TankConfig::size, new Vec3(1, 1, 1))
+                .build();
+
+        Map<String, TeamConfig> teams = Map.of(
+                MY_TEAM, RecordFactory.builder(TeamConfig.class).set(TeamConfig::teamName, MY_TEAM).build(),
+                ENEMY_TEAM, RecordFactory.builder(TeamConfig.class).set(TeamConfig::teamName, ENEMY_TEAM).build());
+
+        long clientId = MY_CLIENT_ID;
+        for (int team = 0; team < 2; team++) {
+            for (int i = 0; i < playersPerTeam; i++) {
+                String teamName = team == 0 ? MY_TEAM : ENEMY_TEAM;
+                ConnectedClientConfig client = RecordFactory.builder(ConnectedClientConfig.class)
+                        .setNumber(ConnectedClientConfig::clientId, clientId)
+                        .set(ConnectedClientConfig::clientName, teamName + "_" + i)
+                        .set(ConnectedClientConfig::clientTeamName, teamName)
+                        .set(ConnectedClientConfig::clientTankType, "LightTank")
+                        .build();
+                clients.add(client);
+                states.put(clientId, clientState(clientId, randomPosition()));
+                clientId++;
+            }
+        }
+
+        // Tank configs are answered by the world's getTankConfig
+        gameConfig = RecordFactory.builder(GameConfig.class)
+                .setNumber(GameConfig::clientId, MY_CLIENT_ID)
+                .setNumber(GameConfig::tickRate, TICK_RATE)
+                .set(GameConfig::mapDefinition, mapDefinition)
+                .set(GameConfig::teamConfigs, teams)
+                .set(GameConfig::connectedClientConfigs, clients)
+                .build();
+
+        for (int i = 0; i < incomingMessageCount; i++) {
+            MessageData data = i % 4 == 0
+                    ? RecordFactory.builder(TeamScored.class).set(TeamScored::team, MY_TEAM).setNumber(TeamScored::score, i).build()
+                    : new SimpleTextMessage("Message " + i);
+            incomingMessages.add(new MessageContainer(CLIENT.get(MY_CLIENT_ID), data));
+        }
+
+        Tank tank = OfflineProxies.create(Tank.class, "Offline", this::handleTank);
+        world = OfflineProxies.create(PublicGameWorld.class, "Offline", (method, args) -> handleWorld(method, args, tank));
+    }
+
+    /// Moves every other tank a little, like a server tick would.
+    void advance() {
+        tick++;
+        for (ConnectedClientConfig client : clients) {
+            if (client.clientId() == MY_CLIENT_ID) {
+                continue;
+            }
+            Vec3 position = states.get(client.clientId()).transformBody().getTranslation();
+            double x = clamp(position.getX() + random.nextGaussian() * 0.2);
+            double z = clamp(position.getZ() + random.nextGaussian() * 0.2);
+            states.put(client.clientId(), clientState(client.clientId(), new Vec3(x, position.getY(), z)));
+        }
+    }
+
+    long sentMessages() {
+        return sentMessages;
+    }
+
+    long tankCommands() {
+        return tankCommands;
+    }
+
+    private Object handleWorld(Method method, Object[] args, Tank tank) {
+        return switch (method.getName()) {
+            case "getGameConfig" -> gameConfig;
+            case "getMyState" -> states.get(MY_CLIENT_ID);
+            case "getClientState" -> states.get((Long) args[0]);
+            case "getTank" -> tank;
+            case "getTankConfig" -> Optional.of(tankConfig);
+            case "getConnectedClientConfig" -> clients.stream()
+                    .filter(client -> client.clientId() == (Long) args[0])
+                    .findFirst();
+            case "getIncomingMessages" -> args == null || args.length == 0
+                    ? incomingMessages
+                    : incomingMessages.stream().filter(message -> ((Class<?>) args[0]).isInstance(message.getMessage())).toList();
+            case "send" -> {
+                sentMessages++;
+                yield null;
+            }
+            case "isDebug" -> false;
+            case "getTick" -> tick;
+            default -> OfflineProxies.defaultReturn(method);
+        };
+    }
+
+    private Object handleTank(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "getConfig" -> tankConfig;
+            case "canShoot", "shoot" -> true;
+            default -> {
+                tankCommands++;
+                yield OfflineProxies.defaultReturn(method);
+            }
+        };
+    }
+
+    private ClientState clientState(long id, Vec3 position) {
+        return RecordFactory.builder(ClientState.class)
+                .setNumber(ClientState::id, id)
+                .set(ClientState::state, ClientState.PlayerState.ALIVE)
+                .set(ClientState::transformBody, Transform.builder().translation(position).build())
+                .setNumber(ClientState::currentHealth, 100f)
+                .build();
+    }
+
+    private Vec3 randomPosition() {
+        return new Vec3(random.nextDouble() * (mapSize - 1), 2, random.nextDouble() * (mapSize - 1));
+    }
+
+    private double clamp(double value) {
+        return Math.max(0, Math.min(mapSize - 1, value));
+    }
+}
@@ -0,0 +1,164 @@
+import dev.zwazel.PropertyHandler;
+import dev.zwazel.internal.game.state.ClientState;
+import dev.zwazel.internal.game.utils.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/// Benchmarks the bot's per-tick hot path on an [OfflineWorldFixture].
+///
+/// `processTick` measures a whole tick; the other benchmarks measure its phases on their own.
+/// Compare the average time against the server tick interval (`1 / tickRate`), and run with
+/// `-prof gc` (the default of [BenchmarkRunner]) to see the allocation rate per operation.
+/// The bot plans synchronously and logs nothing, so every tick does its full work on the measured thread.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"50", "100", "200"})
+    int mapSize;
+
+    @Param({"2", "8"})
+    int playersPerTeam;
+
+    @Param({"16"})
+    int incomingMessages;
+
+    private OfflineWorldFixture fixture;
+    private MyBot bot;
+    private ClientState myState;
+    private NavigationGraph navigationGraph;
+    private PathFinder pathFinder;
+    private int[] path;
+    private BallisticSolver solver;
+    private LineOfFire lineOfFire;
+    private float[] targets;
+    private float[] pitches;
+    private float[] missHeights;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = new OfflineWorldFixture(mapSize, playersPerTeam, incomingMessages, 42);
+        // Plan on the benchmark thread so processTick includes the planning, and keep the console quiet
+        EventLog.useShared(new EventLog(EventLog.Level.OFF, null));
+        PropertyHandler properties = PropertyHandler.getInstance();
+        bot = new MyBot(BotProfile.fromProperties(properties), BotSettings.fromProperties(properties).forSimulation());
+        bot.setup(fixture.world);
+        myState = fixture.world.getMyState();
+
+        navigationGraph = NavigationGraph.of(fixture.mapDefinition, false);
+        pathFinder = new PathFinder();
+        path = new int[navigationGraph.nodeCount()];
+
+        solver = BallisticSolver.of(OfflineWorldFixture.TICK_RATE, 30, 18);
+        lineOfFire = new LineOfFire(navigationGraph);
+        targets = new float[playersPerTeam * 3];
+        for (int i = 0; i < playersPerTeam; i++) {
+            targets[i * 3] = mapSize - 1 - i;
+            targets[i * 3 + 1] = 3;
+            targets[i * 3 + 2] = mapSize / 2f;
+        }
+        pitches = new float[16];
+        for (int i = 0; i < pitches.length; i++) {
+            pitches[i] = -1.2f + i * 0.08f;
+        }
+        missHeights = new float[playersPerTeam * pitches.length];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bot.close();
+    }
+
+    @Benchmark
+    public void processTick() {
+        fixture.advance();
+        bot.processTick(fixture.world);
+    }
+
+    @Benchmark
+    public NavigationGraph navigationGraphBuild() {
+        return NavigationGraph.fromHeights(fixture.mapDefinition.tiles(), false);
+    }
+
+    /// The per-tick graph construction the bot used to do, as a baseline for [#navigationGraphBuild()].
+    @Benchmark
+    public Graph libraryGraphBuild() {
+        return new Graph(fixture.mapDefinition, false);
+    }
+
+    @Benchmark
+    public int pathAcrossMap() {
+        return pathFinder.findPath(navigationGraph, 0, navigationGraph.nodeCount() - 1, path);
+    }
+
+    @Benchmark
+    public Object closestEnemy() {
+        bot.updateEnemyIndex(fixture.world);
+        return bot.findClosestEnemy(fixture.world, myState);
+    }
+
+    @Benchmark
+    public void incomingMessageDispatch() {
+        bot.handleIncomingMessages(fixture.world);
+    }
+
+    @Benchmark
+    public void outgoingMessages() {
+        bot.sendMessages(fixture.world, fixture.gameConfig);
+    }
+
+    @Benchmark
+    public double solvePitch() {
+        return solver.solvePitch(mapSize / 3.0, 1, false);
+    }
+
+    @Benchmark
+    public void arcClosedForm(Blackhole blackhole) {
+        double pitch = -0.8;
+        int ticks = Math.min(1000, solver.ticksToDistance(pitch, 1000));
+        for (int tick = 0; tick <= ticks; tick++) {
+            blackhole.consume(solver.xAtTick(pitch, tick));
+            blackhole.consume(solver.yAtTick(pitch, tick));
+        }
+    }
+
+    /// The step-by-step integration `ArtilleryArcPreviewer` used to do, as a baseline for [#arcClosedForm(Blackhole)].
+    @Benchmark
+    public void arcEulerSteps(Blackhole blackhole) {
+        double dt = 1.0 / OfflineWorldFixture.TICK_RATE;
+        double vx = 30 * Math.cos(-0.8);
+        double vy = -30 * Math.sin(-0.8);
+        double x = 0;
+        double y = 0;
+        for (int i = 0; i < 1000 && x <= 1000; i++) {
+            vy -= 18 * dt;
+            x += vx * dt;
+            y += vy * dt;
+            blackhole.consume(x);
+            blackhole.consume(y);
+        }
+    }
+
+    @Benchmark
+    public int lineOfFireAllEnemies() {
+        return lineOfFire.evaluate(solver, 0.5f, 3, mapSize / 2f,
+                targets, playersPerTeam, pitches, pitches.length, missHeights);
+    }
+}
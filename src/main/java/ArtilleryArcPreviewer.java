@@ -1,7 +1,10 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,7 +25,14 @@ import java.util.List;
 /// velocity.y -= gravity * dt;
 /// transform.translation += velocity * dt;
 ///```
+///
+/// The grid and its labels only change with the grid settings, so they are rendered once into an image and reused
+/// on every repaint until a grid field is edited. Calculating a new arc only repaints the area the old and new arc cover.
 public class ArtilleryArcPreviewer extends JPanel {
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.PLAIN, 10);
+    /// Larger grids (16 MB of ARGB pixels) are drawn directly instead of through the cached image
+    private static final long MAX_GRID_IMAGE_PIXELS = 4_000_000L;
+
     private final JTextField tickRateField;
     private final JTextField speedField;
     private final JTextField gravityField;
@@ -37,6 +47,15 @@ public class ArtilleryArcPreviewer extends JPanel {
 
     // Store the arc points
     private List<Point2D.Double> arcPoints;
+    // Screen area covered by the arc, to repaint only that part when it changes
+    private Rectangle arcBounds = new Rectangle();
+
+    // Parsed grid settings, and the grid rendered with them (null until rendered or after the settings changed)
+    private boolean gridValid;
+    private int gridWidth;
+    private int gridHeight;
+    private double cellSize;
+    private BufferedImage gridImage;
 
     public ArtilleryArcPreviewer() {
         setLayout(new BorderLayout());
@@ -82,9 +101,33 @@ public class ArtilleryArcPreviewer extends JPanel {
 
         // Calculate the arc when the button is pressed
         calculateButton.addActionListener((ActionEvent e) -> {
+            Rectangle oldBounds = arcBounds;
             calculateArc();
-            repaint();
+            arcBounds = calculateArcBounds();
+            repaint(oldBounds.union(arcBounds));
         });
+
+        // Re-render the grid only when its settings change
+        DocumentListener gridSettingsListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                gridSettingsChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                gridSettingsChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                gridSettingsChanged();
+            }
+        };
+        gridWidthField.getDocument().addDocumentListener(gridSettingsListener);
+        gridHeightField.getDocument().addDocumentListener(gridSettingsListener);
+        cellSizeField.getDocument().addDocumentListener(gridSettingsListener);
+        gridSettingsChanged();
     }
 
     public static void main(String[] args) {
@@ -95,7 +138,8 @@ public class ArtilleryArcPreviewer extends JPanel {
         frame.setVisible(true);
     }
 
-    // Calculate the projectile arc using your server simulation formula
+    // Calculate the projectile arc using your server simulation formula.
+    // The positions come from the closed form in BallisticSolver, so each tick is evaluated directly.
     private void calculateArc() {
         try {
             double tickRate = Double.parseDouble(tickRateField.getText());
@@ -103,104 +147,147 @@ public class ArtilleryArcPreviewer extends JPanel {
             double gravity = Double.parseDouble(gravityField.getText());
             double pitch = Double.parseDouble(pitchField.getText());
 
-            double dt = 1.0 / tickRate;
-            double vx = speed * Math.cos(pitch);
-            double vy = -speed * Math.sin(pitch);
+            // Not the cached one: every edit of a field would otherwise leave a solver in the cache
+            BallisticSolver solver = BallisticSolver.create(tickRate, speed, gravity);
+
+            // Stop once we go too far on X, just to limit the number of points
+            int ticks = Math.min(1000, solver.ticksToDistance(pitch, 1000));
 
-            double x = 0;
-            double y = 0;
             arcPoints.clear();
-            arcPoints.add(new Point2D.Double(x, y));
-
-            for (int i = 0; i < 1000; i++) {
-                vy -= gravity * dt;
-                x += vx * dt;
-                y += vy * dt;
-                arcPoints.add(new Point2D.Double(x, y));
-
-                // Break out if we go too far on X, just to limit the loop
-                if (x > 1000) {
-                    break;
-                }
+            for (int tick = 0; tick <= ticks; tick++) {
+                arcPoints.add(new Point2D.Double(solver.xAtTick(pitch, tick), solver.yAtTick(pitch, tick)));
             }
         } catch (NumberFormatException ex) {
             arcPoints.clear();
         }
     }
 
+    private void gridSettingsChanged() {
+        try {
+            gridWidth = Integer.parseInt(gridWidthField.getText());
+            gridHeight = Integer.parseInt(gridHeightField.getText());
+            cellSize = Double.parseDouble(cellSizeField.getText());
+            gridValid = gridWidth > 0 && gridHeight > 0 && cellSize > 0;
+        } catch (NumberFormatException e) {
+            gridValid = false;
+        }
+        gridImage = null;
+        arcBounds = calculateArcBounds();
+        repaint();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (!gridValid) {
+            // If invalid, just bail out
+            return;
+        }
         Graphics2D g2 = (Graphics2D) g;
 
-        // Read user-specified grid settings
-        int userGridWidth, userGridHeight;
-        double userCellSize;
-        try {
-            userGridWidth = Integer.parseInt(gridWidthField.getText());
-            userGridHeight = Integer.parseInt(gridHeightField.getText());
-            userCellSize = Double.parseDouble(cellSizeField.getText());
-        } catch (NumberFormatException e) {
-            // If invalid, just bail out
+        int gridPixelWidth = (int) (gridWidth * cellSize);
+        int gridPixelHeight = (int) (gridHeight * cellSize);
+        if ((long) (gridPixelWidth + 2 * margin) * (gridPixelHeight + 2 * margin) > MAX_GRID_IMAGE_PIXELS) {
+            // Too large to cache, only draw the part that is repainted
+            Rectangle clip = g2.getClipBounds();
+            drawGrid(g2, clip != null ? clip : new Rectangle(getSize()));
+        } else {
+            if (gridImage == null) {
+                gridImage = renderGrid(gridPixelWidth, gridPixelHeight);
+            }
+            g2.drawImage(gridImage, 0, 0, null);
+        }
+
+        // Draw the artillery arc
+        if (arcPoints == null || arcPoints.size() < 2) {
             return;
         }
+        g2.setColor(Color.RED);
+        Point2D.Double previous = arcPoints.getFirst();
+        for (int i = 1; i < arcPoints.size(); i++) {
+            Point2D.Double current = arcPoints.get(i);
+            g2.drawLine(screenX(previous.x), screenY(previous.y), screenX(current.x), screenY(current.y));
+            previous = current;
+        }
+    }
+
+    /// Draws the grid lines and coordinate labels on a transparent image.
+    ///
+    /// @param gridPixelWidth  the total pixel width of the grid (excluding the margin)
+    /// @param gridPixelHeight the total pixel height of the grid (excluding the margin)
+    private BufferedImage renderGrid(int gridPixelWidth, int gridPixelHeight) {
+        BufferedImage image = new BufferedImage(gridPixelWidth + 2 * margin, gridPixelHeight + 2 * margin,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        drawGrid(g2, new Rectangle(image.getWidth(), image.getHeight()));
+        g2.dispose();
+        return image;
+    }
 
-        // The total pixel area of the grid (excluding the margin)
-        int gridPixelWidth = (int) (userGridWidth * userCellSize);
-        int gridPixelHeight = (int) (userGridHeight * userCellSize);
+    /// Draws the grid lines and coordinate labels that can touch `area`.
+    private void drawGrid(Graphics2D g2, Rectangle area) {
+        int gridPixelWidth = (int) (gridWidth * cellSize);
+        int gridPixelHeight = (int) (gridHeight * cellSize);
+        // Labels stick out of their line by up to the margin
+        int firstCol = Math.max(0, (int) Math.floor((area.x - 2 * margin) / cellSize));
+        int lastCol = Math.min(gridWidth, (int) Math.ceil((area.x + area.width) / cellSize));
+        int firstRow = Math.max(0, (int) Math.floor((area.y - 2 * margin) / cellSize));
+        int lastRow = Math.min(gridHeight, (int) Math.ceil((area.y + area.height) / cellSize));
 
         // Draw grid lines
         g2.setColor(Color.LIGHT_GRAY);
         // Vertical lines
-        for (int col = 0; col <= userGridWidth; col++) {
-            int x = margin + (int) (col * userCellSize);
+        for (int col = firstCol; col <= lastCol; col++) {
+            int x = margin + (int) (col * cellSize);
             g2.drawLine(x, margin, x, margin + gridPixelHeight);
         }
         // Horizontal lines
-        for (int row = 0; row <= userGridHeight; row++) {
-            int y = margin + (int) (row * userCellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = margin + (int) (row * cellSize);
             g2.drawLine(margin, y, margin + gridPixelWidth, y);
         }
 
         // Draw coordinate labels
         g2.setColor(Color.BLACK);
-        Font font = new Font("SansSerif", Font.PLAIN, 10);
-        g2.setFont(font);
+        g2.setFont(LABEL_FONT);
+        FontMetrics metrics = g2.getFontMetrics();
 
         // X labels (top)
-        for (int col = 0; col <= userGridWidth; col++) {
+        for (int col = firstCol; col <= lastCol; col++) {
             String label = String.valueOf(col);
-            int x = margin + (int) (col * userCellSize);
-            int labelWidth = g2.getFontMetrics().stringWidth(label);
-            g2.drawString(label, x - labelWidth / 2, margin - 5);
+            int x = margin + (int) (col * cellSize);
+            g2.drawString(label, x - metrics.stringWidth(label) / 2, margin - 5);
         }
         // Y labels (left)
-        for (int row = 0; row <= userGridHeight; row++) {
-            // If you want Y=0 at bottom, invert: int labelVal = userGridHeight - row;
-            int labelVal = row;
-            String label = String.valueOf(labelVal);
-            int y = margin + (int) (row * userCellSize);
-            int labelWidth = g2.getFontMetrics().stringWidth(label);
-            g2.drawString(label, margin - labelWidth - 5, y + 5);
+        for (int row = firstRow; row <= lastRow; row++) {
+            // If you want Y=0 at bottom, invert: int labelVal = gridHeight - row;
+            String label = String.valueOf(row);
+            int y = margin + (int) (row * cellSize);
+            g2.drawString(label, margin - metrics.stringWidth(label) - 5, y + 5);
         }
+    }
 
-        // Draw the artillery arc
-        if (arcPoints == null || arcPoints.size() < 2) {
-            return;
+    /// Screen area the arc is drawn in, empty if there is no arc.
+    private Rectangle calculateArcBounds() {
+        if (!gridValid || arcPoints == null || arcPoints.size() < 2) {
+            return new Rectangle();
         }
-        g2.setColor(Color.RED);
-        for (int i = 1; i < arcPoints.size(); i++) {
-            Point2D.Double p1 = arcPoints.get(i - 1);
-            Point2D.Double p2 = arcPoints.get(i);
+        Rectangle bounds = new Rectangle(screenX(arcPoints.getFirst().x), screenY(arcPoints.getFirst().y), 0, 0);
+        for (Point2D.Double point : arcPoints) {
+            bounds.add(screenX(point.x), screenY(point.y));
+        }
+        // Include the end pixels of the lines
+        bounds.grow(1, 1);
+        return bounds;
+    }
 
-            // Convert arc coordinates to screen coordinates
-            // Note: Y=0 at top means we invert the Y coordinate
-            int screenX1 = margin + (int) (p1.x * userCellSize);
-            int screenY1 = margin + gridPixelHeight - (int) (p1.y * userCellSize);
-            int screenX2 = margin + (int) (p2.x * userCellSize);
-            int screenY2 = margin + gridPixelHeight - (int) (p2.y * userCellSize);
+    // Convert arc coordinates to screen coordinates
+    // Note: Y=0 at top means we invert the Y coordinate
+    private int screenX(double x) {
+        return margin + (int) (x * cellSize);
+    }
 
-            g2.drawLine(screenX1, screenY1, screenX2, screenY2);
-        }
+    private int screenY(double y) {
+        return margin + (int) (gridHeight * cellSize) - (int) (y * cellSize);
     }
 }
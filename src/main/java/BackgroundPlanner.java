@@ -0,0 +1,185 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/// Runs the expensive planning work (path search, pitch solving, line of fire) on its own virtual thread,
+/// so the tick callback only has to publish a snapshot and read the latest plan.
+///
+/// Both directions go through single-slot mailboxes: a newer snapshot replaces one the planner hasn't picked up
+/// yet, and the tick thread always sees the most recent finished [Plan]. Neither side ever blocks on the other.
+///
+/// A synchronous planner (`async = false`) plans right inside [#submit(PlanningSnapshot)] instead and ignores the
+/// search time budget, which makes the bot deterministic, e.g. for the simulator.
+public final class BackgroundPlanner implements AutoCloseable {
+    private static final long REPLAN_INTERVAL_NANOS = 500_000_000L;
+    private static final long SEARCH_BUDGET_NANOS = 500_000L;
+    private static final int LEAD_ITERATIONS = 4;
+
+    private final AtomicReference<PlanningSnapshot> inbox = new AtomicReference<>();
+    private final AtomicReference<Plan> latestPlan = new AtomicReference<>(Plan.EMPTY);
+    private final PathPlanner pathPlanner;
+    private final String name;
+    private final EventLog events;
+    private final Thread thread;
+    private final boolean async;
+    private volatile boolean running = true;
+
+    // Only touched by the planner thread
+    private LineOfFire lineOfFire;
+    private final float[] fireTargets = new float[3];
+    private final float[] firePitch = new float[1];
+    private final float[] fireMissHeight = new float[1];
+    private int publishedPathVersion = -1;
+    private int[] publishedPath = new int[0];
+    private float leadX;
+    private float leadY;
+    private float leadZ;
+
+    public BackgroundPlanner(String name, boolean async, EventLog events) {
+        this.name = name;
+        this.events = events;
+        this.async = async;
+        // Synchronous planning must be reproducible, so no wall-clock budget there
+        this.pathPlanner = new PathPlanner(REPLAN_INTERVAL_NANOS, async ? SEARCH_BUDGET_NANOS : PathPlanner.NO_BUDGET);
+        this.thread = async ? Thread.ofVirtual().name("planner-" + name).start(this::run) : null;
+    }
+
+    /// Hands the planner a new snapshot. Called from the tick thread, never blocks when asynchronous.
+    public void submit(PlanningSnapshot snapshot) {
+        if (!async) {
+            latestPlan.set(plan(snapshot));
+            return;
+        }
+        inbox.set(snapshot);
+        LockSupport.unpark(thread);
+    }
+
+    /// The most recent plan, [Plan#EMPTY] until the first one is done.
+    public Plan latestPlan() {
+        return latestPlan.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            PlanningSnapshot snapshot = inbox.getAndSet(null);
+            if (snapshot == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                latestPlan.set(plan(snapshot));
+            } catch (RuntimeException e) {
+                // Keep planning with the next snapshot, the tick thread keeps using the last good plan
+                events.log(EventLog.Type.PLANNING_FAILED, name, e);
+            }
+        }
+    }
+
+    private Plan plan(PlanningSnapshot snapshot) {
+        if (!snapshot.hasTarget()) {
+            return new Plan(snapshot.createdNanos(), -1, publishedPath, Float.NaN, 0, 0, 0);
+        }
+
+        NavigationGraph graph = snapshot.graph();
+        if (lineOfFire == null || lineOfFire.graph() != graph) {
+            lineOfFire = new LineOfFire(graph);
+        }
+
+        pathPlanner.update(graph, snapshot.myNode(), snapshot.targetNode(), snapshot.createdNanos());
+        if (pathPlanner.getVersion() != publishedPathVersion) {
+            // Only copy the path when it changed, older plans keep pointing at their own copy
+            publishedPath = pathPlanner.copyRemainingPath();
+            publishedPathVersion = pathPlanner.getVersion();
+        }
+
+        // The lob flies much longer, so each arc gets its own lead point. Prefer the flat arc
+        leadTarget(snapshot, false);
+        float pitch = firingPitch(snapshot, false, leadX, leadY, leadZ);
+        if (Float.isNaN(pitch)) {
+            float flatLeadX = leadX;
+            float flatLeadY = leadY;
+            float flatLeadZ = leadZ;
+            leadTarget(snapshot, true);
+            pitch = firingPitch(snapshot, true, leadX, leadY, leadZ);
+            if (Float.isNaN(pitch)) {
+                // Nothing to fire, keep tracking the flat arc's lead point
+                leadX = flatLeadX;
+                leadY = flatLeadY;
+                leadZ = flatLeadZ;
+            }
+        }
+        float aimY = leadY;
+        if (!Float.isNaN(pitch)) {
+            float dx = leadX - snapshot.myX();
+            float dz = leadZ - snapshot.myZ();
+            // Point on the barrel's line above or below the target
+            aimY = snapshot.myY() - (float) (Math.sqrt(dx * dx + dz * dz) * Math.tan(pitch));
+        }
+
+        return new Plan(snapshot.createdNanos(), snapshot.targetId(), publishedPath, pitch, leadX, aimY, leadZ);
+    }
+
+    /// Predicts where the target will be when a shell on the flat or lobbed arc arrives, assuming it keeps its
+    /// velocity.
+    ///
+    /// The flight time depends on the distance and the distance on the flight time, so this alternates between
+    /// solving the pitch for the predicted position and predicting the position after that pitch's flight time.
+    /// Flight times are whole server ticks, like the shell's discrete trajectory. Result in `leadX/Y/Z`.
+    private void leadTarget(PlanningSnapshot snapshot, boolean lob) {
+        BallisticSolver solver = snapshot.solver();
+        leadX = snapshot.targetX();
+        leadY = snapshot.targetY();
+        leadZ = snapshot.targetZ();
+        for (int i = 0; i < LEAD_ITERATIONS; i++) {
+            float dx = leadX - snapshot.myX();
+            float dz = leadZ - snapshot.myZ();
+            double distance = Math.sqrt(dx * dx + dz * dz);
+            double pitch = solver.solvePitch(distance, leadY - snapshot.myY(), lob);
+            if (Double.isNaN(pitch)) {
+                return;
+            }
+
+            int ticks = solver.ticksToDistance(pitch, distance);
+            if (ticks == Integer.MAX_VALUE) {
+                return;
+            }
+            float flightTime = (float) (ticks / solver.tickRate());
+            leadX = snapshot.targetX() + snapshot.targetVX() * flightTime;
+            leadY = snapshot.targetY() + snapshot.targetVY() * flightTime;
+            leadZ = snapshot.targetZ() + snapshot.targetVZ() * flightTime;
+        }
+    }
+
+    /// The pitch of the flat or lobbed arc to the target, if the turret can take it and terrain doesn't block it.
+    ///
+    /// @return the pitch, or `NaN` if the target is out of reach, out of the turret's pitch range or blocked
+    private float firingPitch(PlanningSnapshot snapshot, boolean lob, float targetX, float targetY, float targetZ) {
+        BallisticSolver solver = snapshot.solver();
+        float dx = targetX - snapshot.myX();
+        float dz = targetZ - snapshot.myZ();
+        double horizontalDistance = Math.sqrt(dx * dx + dz * dz);
+        firePitch[0] = (float) solver.solvePitch(horizontalDistance, targetY - snapshot.myY(), lob);
+        if (Float.isNaN(firePitch[0]) || !withinTurretLimits(snapshot, firePitch[0])) {
+            return Float.NaN;
+        }
+
+        fireTargets[0] = targetX;
+        fireTargets[1] = targetY;
+        fireTargets[2] = targetZ;
+        lineOfFire.evaluate(solver, snapshot.myX(), snapshot.myY(), snapshot.myZ(),
+                fireTargets, 1, firePitch, 1, fireMissHeight);
+        return Float.isNaN(fireMissHeight[0]) ? Float.NaN : firePitch[0];
+    }
+
+    private static boolean withinTurretLimits(PlanningSnapshot snapshot, float pitch) {
+        return pitch >= snapshot.turretMinPitch() && pitch <= snapshot.turretMaxPitch();
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Headless solver for the artillery shell trajectory.
+///
+/// The server moves the shell with a semi-implicit Euler step (see [ArtilleryArcPreviewer]):
+/// ```rust
+/// velocity.y -= gravity * dt;
+/// transform.translation += velocity * dt;
+///```
+/// That recurrence has an exact closed form. With `vx = speed * cos(pitch)` and `vy = -speed * sin(pitch)`,
+/// after `n` ticks:
+/// ```
+/// x(n) = n * vx * dt
+/// y(n) = n * vy * dt - gravity * dt * dt * n * (n + 1) / 2
+///```
+/// so any tick can be evaluated in `O(1)` instead of stepping through all ticks before it.
+///
+/// Pitch follows the server convention: `0` is horizontal, negative is upwards, positive is downwards.
+///
+/// Solvers are immutable and cached per `(tickRate, speed, gravity)`, see [#of(double, double, double)].
+/// Settings that change all the time (e.g. typed into the [ArtilleryArcPreviewer]) should use
+/// [#create(double, double, double)] instead, so they don't fill the cache.
+/// Each one carries a precomputed pitch to flat-ground range table.
+public final class BallisticSolver {
+    private static final ConcurrentHashMap<Key, BallisticSolver> CACHE = new ConcurrentHashMap<>();
+    private static final int TABLE_SIZE = 512;
+    private static final int NEWTON_ITERATIONS = 6;
+    /// How far (in height) a solved pitch may still pass the target before [#solvePitch] gives up on it.
+    private static final double HEIGHT_TOLERANCE = 0.05;
+
+    private final double tickRate;
+    private final double speed;
+    private final double gravity;
+    private final double dt;
+
+    // Range table over upward pitches, from 0 (horizontal) to -PI/2 (straight up)
+    private final double[] tablePitch = new double[TABLE_SIZE];
+    private final double[] tableRange = new double[TABLE_SIZE];
+    private final int maxRangeIndex;
+
+    private BallisticSolver(double tickRate, double speed, double gravity) {
+        this.tickRate = tickRate;
+        this.speed = speed;
+        this.gravity = gravity;
+        this.dt = 1.0 / tickRate;
+
+        int best = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double pitch = -(Math.PI / 2) * i / (TABLE_SIZE - 1);
+            tablePitch[i] = pitch;
+            tableRange[i] = flatRange(pitch);
+            if (tableRange[i] > tableRange[best]) {
+                best = i;
+            }
+        }
+        this.maxRangeIndex = best;
+    }
+
+    /// Returns the cached solver for the given server settings.
+    public static BallisticSolver of(double tickRate, double speed, double gravity) {
+        return CACHE.computeIfAbsent(new Key(tickRate, speed, gravity),
+                key -> new BallisticSolver(key.tickRate(), key.speed(), key.gravity()));
+    }
+
+    /// Builds a new solver that is not cached.
+    public static BallisticSolver create(double tickRate, double speed, double gravity) {
+        return new BallisticSolver(tickRate, speed, gravity);
+    }
+
+    public double tickRate() {
+        return tickRate;
+    }
+
+    public double speed() {
+        return speed;
+    }
+
+    public double gravity() {
+        return gravity;
+    }
+
+    /// Horizontal distance travelled after `tick` ticks.
+    public double xAtTick(double pitch, int tick) {
+        return tick * speed * Math.cos(pitch) * dt;
+    }
+
+    /// Height relative to the muzzle after `tick` ticks.
+    public double yAtTick(double pitch, int tick) {
+        double vy = -speed * Math.sin(pitch);
+        return tick * vy * dt - gravity * dt * dt * tick * (tick + 1) / 2.0;
+    }
+
+    /// Vertical velocity after `tick` ticks.
+    public double vyAtTick(double pitch, int tick) {
+        return -speed * Math.sin(pitch) - tick * gravity * dt;
+    }
+
+    /// Number of ticks until the shell has travelled at least `distance` horizontally,
+    /// or `Integer.MAX_VALUE` if it never does (shooting straight up or down).
+    public int ticksToDistance(double pitch, double distance) {
+        double perTick = speed * Math.cos(pitch) * dt;
+        if (perTick <= 1e-9) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.ceil(distance / perTick);
+    }
+
+    /// Flight time in seconds until the shell has travelled `distance` horizontally (not rounded to ticks).
+    public double flightTime(double pitch, double distance) {
+        return distance / (speed * Math.cos(pitch));
+    }
+
+    /// Height of the shell when it has travelled `distance` horizontally,
+    /// i.e. the closed form evaluated at the fractional tick `distance / (vx * dt)`.
+    public double heightAtDistance(double pitch, double distance) {
+        double elevation = -pitch;
+        double time = distance / (speed * Math.cos(elevation));
+        return distance * Math.tan(elevation) - gravity / 2.0 * time * (time + dt);
+    }
+
+    /// Range on flat ground, i.e. where the shell comes back down to muzzle height.
+    public double flatRange(double pitch) {
+        double vy = -speed * Math.sin(pitch);
+        double ticks = 2.0 * vy / (gravity * dt) - 1.0;
+        if (ticks <= 0) {
+            return 0;
+        }
+        return ticks * speed * Math.cos(pitch) * dt;
+    }
+
+    /// The largest flat-ground range any pitch can reach.
+    public double maxRange() {
+        return tableRange[maxRangeIndex];
+    }
+
+    /// The pitch whose flat-ground range is `range`, taken from the precomputed table.
+    ///
+    /// @param highArc choose the steep (lobbed) solution instead of the flat one
+    /// @return the pitch, or `NaN` if the range can't be reached
+    public double pitchForRange(double range, boolean highArc) {
+        if (range < 0 || range > tableRange[maxRangeIndex]) {
+            return Double.NaN;
+        }
+
+        // Range increases from index 0 to maxRangeIndex and decreases after it
+        int low = highArc ? maxRangeIndex : 0;
+        int high = highArc ? TABLE_SIZE - 1 : maxRangeIndex;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            boolean beforeTarget = highArc ? tableRange[mid] > range : tableRange[mid] < range;
+            if (beforeTarget) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+
+        double r0 = tableRange[low];
+        double r1 = tableRange[high];
+        double t = r1 == r0 ? 0 : (range - r0) / (r1 - r0);
+        return tablePitch[low] + t * (tablePitch[high] - tablePitch[low]);
+    }
+
+    /// Solves for the pitch that hits a point `dx` away horizontally and `dy` above the muzzle.
+    ///
+    /// Starts from the continuous (drag-free) analytic solution and refines it with a few Newton steps
+    /// on the discrete closed form, which adds the `gravity * dt * t / 2` term of the server's integrator.
+    ///
+    /// @param highArc choose the steep (lobbed) solution instead of the flat one
+    /// @return the pitch, or `NaN` if the target is out of reach or the refinement doesn't converge
+    ///         to within [#HEIGHT_TOLERANCE] of it
+    public double solvePitch(double dx, double dy, boolean highArc) {
+        if (dx <= 1e-6) {
+            return dy >= 0 ? -Math.PI / 2 : Math.PI / 2;
+        }
+
+        double speed2 = speed * speed;
+        double discriminant = speed2 * speed2 - gravity * (gravity * dx * dx + 2 * dy * speed2);
+        if (discriminant < 0) {
+            return Double.NaN;
+        }
+
+        double root = Math.sqrt(discriminant);
+        double elevation = Math.atan((speed2 + (highArc ? root : -root)) / (gravity * dx));
+
+        for (int i = 0; i < NEWTON_ITERATIONS; i++) {
+            double cos = Math.cos(elevation);
+            double tan = Math.tan(elevation);
+            double time = dx / (speed * cos);
+            double error = dx * tan - gravity / 2.0 * time * (time + dt) - dy;
+            double derivative = dx / (cos * cos) - gravity / 2.0 * (2 * time + dt) * time * tan;
+            if (Math.abs(derivative) < 1e-12) {
+                break;
+            }
+            double step = error / derivative;
+            elevation -= step;
+            if (Math.abs(step) < 1e-9) {
+                break;
+            }
+        }
+
+        if (Double.isNaN(elevation) || Math.abs(elevation) >= Math.PI / 2) {
+            return Double.NaN;
+        }
+        // The continuous solution can exist where the discrete arc no longer reaches, e.g. near the maximum range
+        if (Math.abs(heightAtDistance(-elevation, dx) - dy) > HEIGHT_TOLERANCE) {
+            return Double.NaN;
+        }
+        return -elevation;
+    }
+
+    private record Key(double tickRate, double speed, double gravity) {
+    }
+}
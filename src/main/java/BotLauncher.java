@@ -0,0 +1,42 @@
+import dev.zwazel.GameWorld;
+import dev.zwazel.PropertyHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Starts several bots in a single JVM, e.g. to fill a scrimmage lobby.
+///
+/// The number of bots comes from `bots.count`, every bot's name, team and spawn point from
+/// `bots.<index>.name`, `bots.<index>.team` and `bots.<index>.spawnPoint` (see [BotProfile]).
+/// Each bot is started from its own virtual thread, so bots connect in parallel and one slow connection doesn't hold
+/// up the others. The ticks themselves do *not* run on these threads: the connection and the tick loop belong to
+/// the library, and [GameWorld#startGame] offers no way to choose the threads that call [MyBot#processTick].
+/// Handing each tick over to another thread would only add a hand-off, as the library waits for `processTick` to
+/// return. This launcher calls `startGame` exactly like [MyBot#main] does, just once per bot, and then waits for the
+/// start threads. If `startGame` returns once the game is running, the library's own threads keep the process
+/// alive, as they do for a single bot.
+///
+/// What the launcher does guarantee is that the bots' own background work (planning, visualiser updates) runs on
+/// per-bot virtual threads and never on the thread that calls `processTick`.
+///
+/// Everything that only depends on the map or the tank settings is cached in shared, read-only structures
+/// ([NavigationGraph], [BallisticSolver]), so it is loaded and built once for all bots instead of once per process.
+public class BotLauncher {
+    public static void main(String[] args) throws InterruptedException {
+        PropertyHandler propertyHandler = PropertyHandler.getInstance();
+        int botCount = Integer.parseInt(propertyHandler.getProperty("bots.count"));
+
+        List<Thread> threads = new ArrayList<>(botCount);
+        for (int i = 0; i < botCount; i++) {
+            BotProfile profile = BotProfile.fromProperties(propertyHandler, i);
+            MyBot bot = new MyBot(profile);
+            threads.add(Thread.ofVirtual()
+                    .name("bot-start-" + profile.name())
+                    .start(() -> GameWorld.startGame(bot)));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
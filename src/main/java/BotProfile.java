@@ -0,0 +1,33 @@
+import dev.zwazel.PropertyHandler;
+
+import java.util.Optional;
+
+/// The parts of a bot's lobby setup that differ between bots hosted in the same process.
+///
+/// @param spawnPoint optional, if empty the server assigns a spawn point
+public record BotProfile(String name, String teamName, Optional<Integer> spawnPoint) {
+    /// The single bot configured by `bot.name`, `lobby.team.name` and `lobby.spawnPoint`.
+    public static BotProfile fromProperties(PropertyHandler properties) {
+        return new BotProfile(
+                properties.getProperty("bot.name"),
+                properties.getProperty("lobby.team.name"),
+                Optional.ofNullable(properties.getProperty("lobby.spawnPoint"))
+                        .filter(value -> !value.isBlank())
+                        .map(Integer::parseInt));
+    }
+
+    /// Bot number `index` of the multi-bot launcher, configured by `bots.<index>.name`, `bots.<index>.team`
+    /// and `bots.<index>.spawnPoint`. A missing name or team falls back to the single bot's settings, the name
+    /// with the index appended so every bot is unique. A missing spawn point is left to the server:
+    /// `lobby.spawnPoint` would put every bot on the same spawn point.
+    public static BotProfile fromProperties(PropertyHandler properties, int index) {
+        BotProfile defaults = fromProperties(properties);
+        String prefix = "bots." + index + ".";
+        return new BotProfile(
+                Optional.ofNullable(properties.getProperty(prefix + "name")).orElse(defaults.name() + "_" + index),
+                Optional.ofNullable(properties.getProperty(prefix + "team")).orElse(defaults.teamName()),
+                Optional.ofNullable(properties.getProperty(prefix + "spawnPoint"))
+                        .filter(value -> !value.isBlank())
+                        .map(Integer::parseInt));
+    }
+}
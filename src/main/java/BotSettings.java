@@ -0,0 +1,42 @@
+import dev.zwazel.PropertyHandler;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/// Tunable behaviour of [MyBot].
+///
+/// @param asyncPlanning   run the [BackgroundPlanner] on its own thread. Turn off for deterministic runs
+///                        (e.g. in the simulator), then planning happens on the tick thread.
+/// @param visibilityCache directory for the per-map [VisibilityField] files, empty to not use visibility at all
+/// @param diagnostics     use the [TickProfiler] and [ReplayRecorder] as configured by `debug.profiler.*` and
+///                        `replay.*`, and print events to the [EventLog#shared()] log. Off, nothing is measured,
+///                        written or printed ([EventLog#off()]).
+public record BotSettings(float minAttackDistance, float maxAttackDistance, boolean asyncPlanning,
+                          Optional<Path> visibilityCache, boolean diagnostics) {
+    /// Reads `bot.attack.minDistance`, `bot.attack.maxDistance`, `bot.planner.async` (default `true`)
+    /// and `map.visibility.cacheDir` (unset or empty disables visibility). Diagnostics are on.
+    public static BotSettings fromProperties(PropertyHandler properties) {
+        return new BotSettings(
+                Float.parseFloat(properties.getProperty("bot.attack.minDistance")),
+                Float.parseFloat(properties.getProperty("bot.attack.maxDistance")),
+                Optional.ofNullable(properties.getProperty("bot.planner.async"))
+                        .map(Boolean::parseBoolean)
+                        .orElse(true),
+                Optional.ofNullable(properties.getProperty("map.visibility.cacheDir"))
+                        .filter(value -> !value.isBlank())
+                        .map(Path::of),
+                true);
+    }
+
+    /// Attack distances only, for the simulator: synchronous planning, and no visibility cache,
+    /// which would otherwise be computed and written for every generated map. No diagnostics either: thousands of
+    /// short simulated bots would only flood the disk and the console.
+    public static BotSettings forSimulation(float minAttackDistance, float maxAttackDistance) {
+        return new BotSettings(minAttackDistance, maxAttackDistance, false, Optional.empty(), false);
+    }
+
+    /// These settings, prepared for the simulator (see [#forSimulation(float, float)]).
+    public BotSettings forSimulation() {
+        return forSimulation(minAttackDistance, maxAttackDistance);
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/// Remembers where every enemy was during the last ticks and estimates how fast it is moving.
+///
+/// Each enemy has a ring buffer of its recent positions, kept as primitive `float[]` columns (time, x, y, z).
+/// The velocity is a constant-velocity least-squares fit over those samples, which smooths out the jitter of
+/// single ticks. A sample that jumps too far (e.g. a respawn) starts the history over.
+public final class EnemyTracker {
+    private static final int HISTORY_SIZE = 16;
+    private static final float MAX_PLAUSIBLE_SPEED = 20;
+
+    private long[] ids = new long[0];
+    private MotionHistory[] histories = new MotionHistory[0];
+
+    /// Records the current position of every tank in the index.
+    ///
+    /// @param time seconds since any fixed point, increasing every tick
+    public void update(SpatialIndex enemies, float time) {
+        for (int i = 0; i < enemies.size(); i++) {
+            history(enemies.id(i)).add(time, enemies.x(i), enemies.y(i), enemies.z(i));
+        }
+    }
+
+    /// Writes the estimated `(vx, vy, vz)` of the given enemy into `velocity`, zero if it is unknown.
+    public void velocity(long id, float[] velocity) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                histories[i].velocity(velocity);
+                return;
+            }
+        }
+        velocity[0] = velocity[1] = velocity[2] = 0;
+    }
+
+    private MotionHistory history(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return histories[i];
+            }
+        }
+        ids = Arrays.copyOf(ids, ids.length + 1);
+        histories = Arrays.copyOf(histories, histories.length + 1);
+        ids[ids.length - 1] = id;
+        histories[histories.length - 1] = new MotionHistory();
+        return histories[histories.length - 1];
+    }
+
+    private static final class MotionHistory {
+        private final float[] time = new float[HISTORY_SIZE];
+        private final float[] x = new float[HISTORY_SIZE];
+        private final float[] y = new float[HISTORY_SIZE];
+        private final float[] z = new float[HISTORY_SIZE];
+        private int newest = -1;
+        private int count;
+
+        void add(float t, float px, float py, float pz) {
+            if (count > 0) {
+                float dt = t - time[newest];
+                if (dt <= 0) {
+                    return;
+                }
+                float dx = px - x[newest];
+                float dz = pz - z[newest];
+                if (dx * dx + dz * dz > (MAX_PLAUSIBLE_SPEED * dt) * (MAX_PLAUSIBLE_SPEED * dt)) {
+                    count = 0;
+                }
+            }
+
+            newest = (newest + 1) % HISTORY_SIZE;
+            time[newest] = t;
+            x[newest] = px;
+            y[newest] = py;
+            z[newest] = pz;
+            count = Math.min(count + 1, HISTORY_SIZE);
+        }
+
+        void velocity(float[] velocity) {
+            if (count < 2) {
+                velocity[0] = velocity[1] = velocity[2] = 0;
+                return;
+            }
+
+            float meanT = 0, meanX = 0, meanY = 0, meanZ = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = (newest - i + HISTORY_SIZE) % HISTORY_SIZE;
+                meanT += time[slot];
+                meanX += x[slot];
+                meanY += y[slot];
+                meanZ += z[slot];
+            }
+            meanT /= count;
+            meanX /= count;
+            meanY /= count;
+            meanZ /= count;
+
+            float varianceT = 0, covX = 0, covY = 0, covZ = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = (newest - i + HISTORY_SIZE) % HISTORY_SIZE;
+                float dt = time[slot] - meanT;
+                varianceT += dt * dt;
+                covX += dt * (x[slot] - meanX);
+                covY += dt * (y[slot] - meanY);
+                covZ += dt * (z[slot] - meanZ);
+            }
+            if (varianceT <= 0) {
+                velocity[0] = velocity[1] = velocity[2] = 0;
+                return;
+            }
+            velocity[0] = covX / varianceT;
+            velocity[1] = covY / varianceT;
+            velocity[2] = covZ / varianceT;
+        }
+    }
+}
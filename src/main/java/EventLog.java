@@ -0,0 +1,335 @@
+import dev.zwazel.PropertyHandler;
+
+import java.io.PrintStream;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/// Asynchronous, garbage-free event log for everything the bot wants to print during a tick.
+///
+/// Logging an event only claims a slot in a preallocated ring buffer and copies the arguments into it: references
+/// to objects that already exist (names, sides, messages) and primitive numbers. Formatting and printing happen on
+/// a daemon thread, so a slow console or pipe never stalls a tick. If the ring is full, the event is dropped instead.
+///
+/// Every [Type] has a [Level], a sampling rate (only every n-th event is kept) and a rate limit (at most that many
+/// events per second). Suppressed events are counted, and the count is added to the next event of that type that is
+/// printed. The level comes from `debug.mode`: `NONE` only prints warnings, `PUBLIC` adds info events and `INTERNAL`
+/// prints everything. Per type, `log.<type>.sampleEvery` and `log.<type>.maxPerSecond` override the defaults
+/// (e.g. `log.dead.maxPerSecond=1`).
+///
+/// All bots in a process share one log ([#shared()]), every event names the bot it comes from. Benchmarks and
+/// tools can replace it with [#useShared(EventLog)], or hand their bots [#off()]. A log at [Level#OFF] has no
+/// printer thread at all; any other log prints until [#close()].
+public final class EventLog implements AutoCloseable {
+    private static final int CAPACITY = 4096;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final EventLog OFF = new EventLog(Level.OFF, null);
+    private static volatile EventLog shared;
+
+    private final Level level;
+    private final Entry[] ring = new Entry[CAPACITY];
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final long[] sampleEvery = new long[Type.values().length];
+    private final long[] maxPerSecond = new long[Type.values().length];
+    private final AtomicLongArray seen = new AtomicLongArray(Type.values().length);
+    private final AtomicLongArray windowStart = new AtomicLongArray(Type.values().length);
+    private final AtomicLongArray windowCount = new AtomicLongArray(Type.values().length);
+    private final AtomicLongArray suppressed = new AtomicLongArray(Type.values().length);
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread printer;
+    private final Thread shutdownHook;
+
+    public EventLog(Level level, PropertyHandler properties) {
+        this.level = level;
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry(i - CAPACITY);
+        }
+        long now = System.nanoTime();
+        for (Type type : Type.values()) {
+            windowStart.set(type.ordinal(), now - 1_000_000_000L);
+            String prefix = "log." + type.name().toLowerCase() + ".";
+            sampleEvery[type.ordinal()] = Math.max(1, propertyOrDefault(properties, prefix + "sampleEvery", type.sampleEvery));
+            maxPerSecond[type.ordinal()] = propertyOrDefault(properties, prefix + "maxPerSecond", type.maxPerSecond);
+        }
+
+        if (level == Level.OFF) {
+            // Nothing is ever published
+            printer = null;
+            shutdownHook = null;
+            return;
+        }
+        printer = Thread.ofPlatform().daemon().name("event-log").start(this::printLoop);
+        // Print what is still queued when the process ends, unless closed before
+        shutdownHook = new Thread(this::stopPrinter, "event-log-drain");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /// The log that prints nothing, e.g. for simulated bots. Shared, there is nothing to close.
+    public static EventLog off() {
+        return OFF;
+    }
+
+    /// The log of this process, created on first use with the level from `debug.mode`.
+    public static EventLog shared() {
+        EventLog log = shared;
+        if (log == null) {
+            synchronized (EventLog.class) {
+                log = shared;
+                if (log == null) {
+                    PropertyHandler properties = PropertyHandler.getInstance();
+                    log = new EventLog(Level.fromDebugMode(properties.getProperty("debug.mode")), properties);
+                    shared = log;
+                }
+            }
+        }
+        return log;
+    }
+
+    /// Replaces the log of this process. Only affects code that asks for [#shared()] afterwards, so call it before
+    /// creating the bots.
+    public static void useShared(EventLog log) {
+        synchronized (EventLog.class) {
+            shared = log;
+        }
+    }
+
+    private static long propertyOrDefault(PropertyHandler properties, String key, long defaultValue) {
+        return properties == null ? defaultValue : Optional.ofNullable(properties.getProperty(key))
+                .filter(value -> !value.isBlank())
+                .map(Long::parseLong)
+                .orElse(defaultValue);
+    }
+
+    public boolean isEnabled(Type type) {
+        return type.level.ordinal() >= level.ordinal();
+    }
+
+    public void log(Type type, String source) {
+        publish(type, source, null, null, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public void log(Type type, String source, Object first) {
+        publish(type, source, first, null, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public void log(Type type, String source, Object first, Object second) {
+        publish(type, source, first, second, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public void log(Type type, String source, Object first, Object second, float f1, float f2, float f3, float f4) {
+        publish(type, source, first, second, 0, 0, 0, f1, f2, f3, f4);
+    }
+
+    public void log(Type type, String source, long l1, long l2, long l3) {
+        publish(type, source, null, null, l1, l2, l3, 0, 0, 0, 0);
+    }
+
+    private void publish(Type type, String source, Object first, Object second,
+                         long l1, long l2, long l3, float f1, float f2, float f3, float f4) {
+        if (!isEnabled(type) || !admit(type)) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= CAPACITY) {
+                suppressed.incrementAndGet(type.ordinal());
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Entry entry = ring[(int) (sequence & (CAPACITY - 1))];
+        entry.type = type;
+        entry.source = source;
+        entry.first = first;
+        entry.second = second;
+        entry.l1 = l1;
+        entry.l2 = l2;
+        entry.l3 = l3;
+        entry.f1 = f1;
+        entry.f2 = f2;
+        entry.f3 = f3;
+        entry.f4 = f4;
+        // Publishes the fields above to the printer thread
+        entry.sequence = sequence;
+    }
+
+    /// Applies the type's sampling and rate limit.
+    private boolean admit(Type type) {
+        int index = type.ordinal();
+        if (seen.getAndIncrement(index) % sampleEvery[index] != 0) {
+            suppressed.incrementAndGet(index);
+            return false;
+        }
+        long limit = maxPerSecond[index];
+        if (limit <= 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get(index);
+        if (now - start >= 1_000_000_000L && windowStart.compareAndSet(index, start, now)) {
+            windowCount.set(index, 0);
+        }
+        if (windowCount.incrementAndGet(index) > limit) {
+            suppressed.incrementAndGet(index);
+            return false;
+        }
+        return true;
+    }
+
+    private void printLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!printNext()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /// Stops the printer thread after printing what is still queued. Events logged afterwards are dropped.
+    @Override
+    public void close() {
+        if (printer == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The process is already shutting down, the hook is running or about to
+        }
+        stopPrinter();
+    }
+
+    private void stopPrinter() {
+        printer.interrupt();
+        try {
+            printer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    private synchronized void drain() {
+        while (printNext()) {
+            // Print everything that was published
+        }
+    }
+
+    /// Prints the next published entry, if there is one.
+    private synchronized boolean printNext() {
+        long next = consumed;
+        Entry entry = ring[(int) (next & (CAPACITY - 1))];
+        if (entry.sequence != next) {
+            return false;
+        }
+
+        Type type = entry.type;
+        line.setLength(0);
+        if (entry.source != null) {
+            line.append('[').append(entry.source).append("] ");
+        }
+        type.format.format(line, entry);
+        long suppressedCount = suppressed.getAndSet(type.ordinal(), 0);
+        if (suppressedCount > 0) {
+            line.append(" (").append(suppressedCount).append(" more suppressed)");
+        }
+        entry.first = null;
+        entry.second = null;
+        consumed = next + 1;
+
+        PrintStream out = type.level == Level.WARN ? System.err : System.out;
+        out.println(line);
+        return true;
+    }
+
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        /// Prints nothing, not even warnings
+        OFF;
+
+        /// `NONE` -> [#WARN], `PUBLIC` -> [#INFO], `INTERNAL` -> [#DEBUG]. Unknown or missing is [#INFO].
+        public static Level fromDebugMode(String debugMode) {
+            if (debugMode == null) {
+                return INFO;
+            }
+            return switch (debugMode.toUpperCase()) {
+                case "NONE" -> WARN;
+                case "INTERNAL" -> DEBUG;
+                default -> INFO;
+            };
+        }
+    }
+
+    /// Everything the bot logs during a tick, with how it is printed and how often.
+    public enum Type {
+        DEAD(Level.INFO, 1, 1, (out, e) -> out.append("I'm dead!")),
+        DIED(Level.INFO, 1, 0, (out, e) -> out.append("I died! killed by ").append(e.first)),
+        SHOT(Level.INFO, 1, 10, (out, e) -> out.append("Shot at enemy!")),
+        /// first: target name, second: side, f1: damage dealt, f2: expected damage, f3: armor, f4: target health
+        HIT(Level.INFO, 1, 20, (out, e) -> out.append("Hit ").append(e.first).append(" on ").append(e.second)
+                .append(" side! Dealt damage: ").append(e.f1).append(" = ").append(e.f2).append(" * (1 - ").append(e.f3)
+                .append("), ").append(e.first).append(" health: ").append(e.f4)),
+        /// first: shooter name, second: side, f1: damage received, f2: own health
+        GOT_HIT(Level.INFO, 1, 20, (out, e) -> out.append("Got hit by ").append(e.first).append(" on ").append(e.second)
+                .append("! Received ").append(e.f1).append(" damage, current health: ").append(e.f2)),
+        /// first: team name, f1: score
+        TEAM_SCORED(Level.INFO, 1, 0, (out, e) -> out.append("Team ").append(e.first).append(" scored a point! Score: ")
+                .append((int) e.f1)),
+        TEXT_MESSAGE(Level.INFO, 1, 10, (out, e) -> out.append("Received text message:\n\t").append(e.first)),
+        /// first: message type name, second: the message
+        UNHANDLED_MESSAGE(Level.WARN, 1, 0, (out, e) -> out.append("Received unhandled message \"").append(e.first)
+                .append("\" (only reported once per bot):\n\t").append(e.second)),
+        PLANNING_FAILED(Level.WARN, 1, 1, (out, e) -> out.append("Planning failed: ").append(e.first)),
+        /// l1: tick duration, l2: budget (both nanoseconds), l3: overruns so far
+        TICK_OVERRUN(Level.WARN, 1, 1, (out, e) -> out.append("Tick took ").append(e.l1 / 1_000).append("us, budget is ")
+                .append(e.l2 / 1_000).append("us (").append(e.l3).append(" overruns so far)"));
+
+        private final Level level;
+        private final long sampleEvery;
+        private final long maxPerSecond;
+        private final Format format;
+
+        /// @param maxPerSecond `0` for no limit
+        Type(Level level, long sampleEvery, long maxPerSecond, Format format) {
+            this.level = level;
+            this.sampleEvery = sampleEvery;
+            this.maxPerSecond = maxPerSecond;
+            this.format = format;
+        }
+
+        public Level level() {
+            return level;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Format {
+        void format(StringBuilder out, Entry entry);
+    }
+
+    /// One slot of the ring. `sequence` is written last by the producer and read first by the printer.
+    private static final class Entry {
+        private volatile long sequence;
+        private Type type;
+        private String source;
+        private Object first;
+        private Object second;
+        private long l1;
+        private long l2;
+        private long l3;
+        private float f1;
+        private float f2;
+        private float f3;
+        private float f4;
+
+        private Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/// Checks whether terrain blocks a shell on its way to a target.
+///
+/// The shell's discrete trajectory (see [BallisticSolver]) is walked tick by tick. Between two ticks the shell
+/// moves in a straight line, so every segment is traversed through the tile grid with a 2D DDA
+/// (Amanatides & Woo) on the horizontal plane. For every tile the segment crosses, the shell's height
+/// at the tile's entry and exit is compared with the tile height.
+///
+/// A whole batch of targets and pitches is evaluated in one call, directly on the graph's flat height array,
+/// without allocating.
+///
+/// Tiles are mapped like everywhere else, see [NavigationGraph#tileShift()].
+public final class LineOfFire {
+    private static final int MAX_TICKS = 1000;
+
+    private final NavigationGraph graph;
+    private final float[] heights;
+    private final int width;
+    private final int depth;
+    private final float tileShift;
+
+    public LineOfFire(NavigationGraph graph) {
+        this.graph = graph;
+        this.heights = graph.heights();
+        this.width = graph.width();
+        this.depth = graph.depth();
+        this.tileShift = graph.tileShift();
+    }
+
+    public NavigationGraph graph() {
+        return graph;
+    }
+
+    /// Evaluates every combination of target and pitch.
+    ///
+    /// @param targets     packed target positions `x, y, z, x, y, z, ...`
+    /// @param targetCount number of targets in `targets`
+    /// @param pitches     candidate pitches (server convention, negative is upwards)
+    /// @param pitchCount  number of pitches in `pitches`
+    /// @param missHeight  output, size at least `targetCount * pitchCount`, indexed `target * pitchCount + pitch`.
+    ///                    Receives how far above (+) or below (-) the target the shell passes,
+    ///                    or `NaN` if terrain blocks the shell before it gets there.
+    /// @return the number of combinations that are not blocked
+    public int evaluate(BallisticSolver solver, float originX, float originY, float originZ,
+                        float[] targets, int targetCount, float[] pitches, int pitchCount, float[] missHeight) {
+        int clear = 0;
+        for (int target = 0; target < targetCount; target++) {
+            float dx = targets[target * 3] - originX;
+            float dz = targets[target * 3 + 2] - originZ;
+            float distance = (float) Math.sqrt(dx * dx + dz * dz);
+            float dirX = distance > 1e-6f ? dx / distance : 0;
+            float dirZ = distance > 1e-6f ? dz / distance : 0;
+            float targetHeight = targets[target * 3 + 1] - originY;
+
+            for (int p = 0; p < pitchCount; p++) {
+                float result = trace(solver, pitches[p], originX, originY, originZ, dirX, dirZ, distance);
+                if (!Float.isNaN(result)) {
+                    result -= targetHeight;
+                    clear++;
+                }
+                missHeight[target * pitchCount + p] = result;
+            }
+        }
+        return clear;
+    }
+
+    /// Walks one shot up to `distance`.
+    ///
+    /// @return the shell height relative to the muzzle at `distance`, or `NaN` if terrain is hit first
+    ///         or the shell doesn't get there within [#MAX_TICKS]
+    private float trace(BallisticSolver solver, float pitch, float originX, float originY, float originZ,
+                        float dirX, float dirZ, float distance) {
+        int ticks = solver.ticksToDistance(pitch, distance);
+        if (ticks > MAX_TICKS) {
+            return Float.NaN;
+        }
+        if (ticks == 0) {
+            return 0;
+        }
+
+        int originTile = tileIndex(originX, originZ);
+        float previousD = 0;
+        float previousY = 0;
+        for (int tick = 1; tick <= ticks; tick++) {
+            float d = (float) solver.xAtTick(pitch, tick);
+            float y = (float) solver.yAtTick(pitch, tick);
+            if (d > distance) {
+                // Only follow the last segment up to the target
+                float t = (distance - previousD) / (d - previousD);
+                y = previousY + (y - previousY) * t;
+                d = distance;
+            }
+
+            if (segmentBlocked(originX + dirX * previousD, originZ + dirZ * previousD, originY + previousY,
+                    originX + dirX * d, originZ + dirZ * d, originY + y, originTile)) {
+                return Float.NaN;
+            }
+
+            previousD = d;
+            previousY = y;
+        }
+        return previousD < distance ? Float.NaN : previousY;
+    }
+
+    /// Whether terrain blocks the straight line between two points, e.g. the line of sight between two turrets.
+    /// Unlike a shot, the tiles at both ends are checked as well.
+    public boolean isLineBlocked(float fromX, float fromY, float fromZ, float toX, float toY, float toZ) {
+        return segmentBlocked(fromX, fromZ, fromY, toX, toZ, toY, -1);
+    }
+
+    private int tileIndex(float x, float z) {
+        int tileX = (int) Math.floor(x + tileShift);
+        int tileZ = (int) Math.floor(z + tileShift);
+        return tileX >= 0 && tileZ >= 0 && tileX < width && tileZ < depth ? tileX + tileZ * width : -1;
+    }
+
+    /// 2D DDA over the tiles between `(x0, z0)` and `(x1, z1)`; the shell height is linear along the segment.
+    private boolean segmentBlocked(float x0, float z0, float y0, float x1, float z1, float y1, int ignoredTile) {
+        // In tile space from here on: tile x covers [x, x + 1)
+        x0 += tileShift;
+        z0 += tileShift;
+        x1 += tileShift;
+        z1 += tileShift;
+        int tileX = (int) Math.floor(x0);
+        int tileZ = (int) Math.floor(z0);
+        int endX = (int) Math.floor(x1);
+        int endZ = (int) Math.floor(z1);
+        float dx = x1 - x0;
+        float dz = z1 - z0;
+
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepZ = dz > 0 ? 1 : (dz < 0 ? -1 : 0);
+        float tDeltaX = stepX != 0 ? Math.abs(1f / dx) : Float.MAX_VALUE;
+        float tDeltaZ = stepZ != 0 ? Math.abs(1f / dz) : Float.MAX_VALUE;
+        float tMaxX = stepX > 0 ? (tileX + 1 - x0) * tDeltaX : (stepX < 0 ? (x0 - tileX) * tDeltaX : Float.MAX_VALUE);
+        float tMaxZ = stepZ > 0 ? (tileZ + 1 - z0) * tDeltaZ : (stepZ < 0 ? (z0 - tileZ) * tDeltaZ : Float.MAX_VALUE);
+
+        float tEnter = 0;
+        int maxSteps = Math.abs(endX - tileX) + Math.abs(endZ - tileZ) + 1;
+        for (int i = 0; i < maxSteps; i++) {
+            float tExit = Math.min(1f, Math.min(tMaxX, tMaxZ));
+
+            if (tileX >= 0 && tileZ >= 0 && tileX < width && tileZ < depth) {
+                int tile = tileX + tileZ * width;
+                if (tile != ignoredTile) {
+                    float lowest = Math.min(y0 + (y1 - y0) * tEnter, y0 + (y1 - y0) * tExit);
+                    if (lowest < heights[tile]) {
+                        return true;
+                    }
+                }
+            }
+
+            if (tExit >= 1f) {
+                break;
+            }
+            tEnter = tExit;
+            if (tMaxX < tMaxZ) {
+                tileX += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                tileZ += stepZ;
+                tMaxZ += tDeltaZ;
+            }
+        }
+        return false;
+    }
+}
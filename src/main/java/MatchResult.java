@@ -0,0 +1,26 @@
+/// Outcome of one [SimulatedMatch]. Team `a` is the first team (`Red`), team `b` the second (`Blue`).
+///
+/// @param winner `0` if team a won, `1` if team b won, `-1` for a draw
+public record MatchResult(
+        long seed,
+        int winner,
+        int ticks,
+        int aliveA,
+        int aliveB,
+        float healthA,
+        float healthB,
+        float damageDealtA,
+        float damageDealtB,
+        int shotsA,
+        int shotsB,
+        int hitsA,
+        int hitsB
+) {
+    public float hitRateA() {
+        return shotsA == 0 ? 0 : (float) hitsA / shotsA;
+    }
+
+    public float hitRateB() {
+        return shotsB == 0 ? 0 : (float) hitsB / shotsB;
+    }
+}
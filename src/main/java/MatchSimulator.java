@@ -0,0 +1,103 @@
+import dev.zwazel.PropertyHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/// Plays many [SimulatedMatch]es offline, to compare strategies or settings without a server.
+///
+/// Matches are independent, so they run in parallel on a fixed pool; the results come back in the order of the
+/// configs, and every match is reproducible from its seed.
+///
+/// Run with `[matches] [mapSize] [playersPerTeam] [firstSeed]`, e.g. `1000 50 2 0`.
+/// Both teams play [MyBot] with the settings from `app.properties`, with synchronous planning.
+public final class MatchSimulator {
+    private MatchSimulator() {
+    }
+
+    public static List<MatchResult> runAll(List<SimulationConfig> configs, SimulatedMatch.BotFactory teamA,
+                                           SimulatedMatch.BotFactory teamB, int parallelism) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<MatchResult>> futures = new ArrayList<>(configs.size());
+            for (SimulationConfig config : configs) {
+                futures.add(executor.submit(() -> new SimulatedMatch(config, teamA, teamB).run()));
+            }
+
+            List<MatchResult> results = new ArrayList<>(configs.size());
+            for (Future<MatchResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated match failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /// Plays the match twice and fails if the results differ, e.g. because something in the bots depends on
+    /// wall-clock time or thread scheduling.
+    public static MatchResult checkDeterminism(SimulationConfig config, SimulatedMatch.BotFactory teamA,
+                                               SimulatedMatch.BotFactory teamB) {
+        MatchResult first = new SimulatedMatch(config, teamA, teamB).run();
+        MatchResult second = new SimulatedMatch(config, teamA, teamB).run();
+        if (!first.equals(second)) {
+            throw new IllegalStateException("Seed " + config.seed() + " played out differently:\n\t" + first + "\n\t" + second);
+        }
+        return first;
+    }
+
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int mapSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int playersPerTeam = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long firstSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        BotSettings settings = BotSettings.fromProperties(PropertyHandler.getInstance()).forSimulation();
+        SimulatedMatch.BotFactory factory = profile -> new MyBot(profile, settings);
+
+        List<SimulationConfig> configs = new ArrayList<>(matches);
+        for (int i = 0; i < matches; i++) {
+            configs.add(SimulationConfig.randomMap(mapSize, playersPerTeam, firstSeed + i));
+        }
+
+        // Results are only comparable between runs if a seed always plays out the same way
+        checkDeterminism(configs.getFirst(), factory, factory);
+
+        long start = System.nanoTime();
+        List<MatchResult> results = runAll(configs, factory, factory, Runtime.getRuntime().availableProcessors());
+        double minutes = (System.nanoTime() - start) / 60e9;
+
+        int[] wins = new int[2];
+        int draws = 0;
+        long ticks = 0;
+        long shotsA = 0, hitsA = 0, shotsB = 0, hitsB = 0;
+        for (MatchResult result : results) {
+            if (result.winner() < 0) {
+                draws++;
+            } else {
+                wins[result.winner()]++;
+            }
+            ticks += result.ticks();
+            shotsA += result.shotsA();
+            hitsA += result.hitsA();
+            shotsB += result.shotsB();
+            hitsB += result.hitsB();
+        }
+
+        System.out.printf("%d matches: %s won %d, %s won %d, %d draws%n",
+                matches, SimulatedMatch.TEAMS[0], wins[0], SimulatedMatch.TEAMS[1], wins[1], draws);
+        System.out.printf("Average length: %.0f ticks%n", (double) ticks / Math.max(1, matches));
+        System.out.printf("Hit rate: %s %.1f%%, %s %.1f%%%n",
+                SimulatedMatch.TEAMS[0], 100.0 * hitsA / Math.max(1, shotsA),
+                SimulatedMatch.TEAMS[1], 100.0 * hitsB / Math.max(1, shotsB));
+        System.out.printf("%.0f matches per minute%n", matches / minutes);
+    }
+}
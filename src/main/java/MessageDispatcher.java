@@ -0,0 +1,99 @@
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.message.MessageContainer;
+import dev.zwazel.internal.message.MessageData;
+
+import java.util.Arrays;
+import java.util.List;
+
+/// Routes every incoming message to the handler registered for its type, in a single pass per tick.
+///
+/// Handlers are registered once (e.g. as method references in the constructor), lookups compare the message's
+/// class against a small array of registered types, so dispatching doesn't allocate. Every type gets a counter;
+/// messages without a handler are counted and reported once per type instead of once per message. Each bot has its
+/// own dispatcher, so every bot reports the types it can't handle itself, under its own name.
+public final class MessageDispatcher {
+    private final String botName;
+    private final EventLog events;
+    private Class<?>[] types = new Class<?>[0];
+    private Handler<?>[] handlers = new Handler<?>[0];
+    private long[] counts = new long[0];
+    // Types this dispatcher has reported, not shared with other bots' dispatchers
+    private Class<?>[] reportedUnhandled = new Class<?>[0];
+    private long unhandledCount;
+
+    /// @param botName the bot whose messages these are, named in the reports
+    public MessageDispatcher(String botName, EventLog events) {
+        this.botName = botName;
+        this.events = events;
+    }
+
+    /// Registers the handler for messages of exactly the given type, replacing an earlier one.
+    public <T extends MessageData> MessageDispatcher register(Class<T> type, Handler<? super T> handler) {
+        int slot = slotOf(type);
+        if (slot < 0) {
+            slot = types.length;
+            types = Arrays.copyOf(types, slot + 1);
+            handlers = Arrays.copyOf(handlers, slot + 1);
+            counts = Arrays.copyOf(counts, slot + 1);
+            types[slot] = type;
+        }
+        handlers[slot] = handler;
+        return this;
+    }
+
+    /// Handles all of this tick's incoming messages.
+    public void dispatch(PublicGameWorld world) {
+        List<MessageContainer> messages = world.getIncomingMessages();
+        for (int i = 0, count = messages.size(); i < count; i++) {
+            dispatch(world, messages.get(i).getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(PublicGameWorld world, MessageData data) {
+        int slot = slotOf(data.getClass());
+        if (slot < 0) {
+            unhandled(data);
+            return;
+        }
+        counts[slot]++;
+        ((Handler<MessageData>) handlers[slot]).handle(world, data);
+    }
+
+    private int slotOf(Class<?> type) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void unhandled(MessageData data) {
+        unhandledCount++;
+        Class<?> type = data.getClass();
+        for (Class<?> reported : reportedUnhandled) {
+            if (reported == type) {
+                return;
+            }
+        }
+        reportedUnhandled = Arrays.copyOf(reportedUnhandled, reportedUnhandled.length + 1);
+        reportedUnhandled[reportedUnhandled.length - 1] = type;
+        events.log(EventLog.Type.UNHANDLED_MESSAGE, botName, type.getSimpleName(), data);
+    }
+
+    /// Number of dispatched messages of the given type, `0` if it has no handler.
+    public long count(Class<? extends MessageData> type) {
+        int slot = slotOf(type);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    public long getUnhandledCount() {
+        return unhandledCount;
+    }
+
+    @FunctionalInterface
+    public interface Handler<T extends MessageData> {
+        void handle(PublicGameWorld world, T data);
+    }
+}
@@ -7,38 +7,94 @@ import dev.zwazel.internal.config.LocalBotConfig;
 import dev.zwazel.internal.connection.client.ConnectedClientConfig;
 import dev.zwazel.internal.debug.MapVisualiser;
 import dev.zwazel.internal.game.lobby.TeamConfig;
+import dev.zwazel.internal.game.map.MapDefinition;
 import dev.zwazel.internal.game.state.ClientState;
 import dev.zwazel.internal.game.tank.Tank;
 import dev.zwazel.internal.game.tank.TankConfig;
 import dev.zwazel.internal.game.tank.implemented.LightTank;
 import dev.zwazel.internal.game.transform.Vec3;
 import dev.zwazel.internal.game.utils.Graph;
-import dev.zwazel.internal.game.utils.Node;
-import dev.zwazel.internal.message.MessageContainer;
-import dev.zwazel.internal.message.MessageData;
 import dev.zwazel.internal.message.data.GameConfig;
 import dev.zwazel.internal.message.data.SimpleTextMessage;
 import dev.zwazel.internal.message.data.TeamScored;
 import dev.zwazel.internal.message.data.tank.GotHit;
 import dev.zwazel.internal.message.data.tank.Hit;
 
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static dev.zwazel.internal.message.MessageTarget.Type.CLIENT;
+import static dev.zwazel.internal.message.MessageTarget.Type.TEAM;
 
-public class MyBot implements BotInterface {
+public class MyBot implements BotInterface, AutoCloseable {
+    private static final float SPATIAL_CELL_SIZE = 4;
+    // How many of the nearest enemies are considered when looking for one in sight
+    private static final int TARGET_CANDIDATES = 4;
+    private static final long VISUALISER_UPDATE_INTERVAL_MILLIS = 100;
     private final PropertyHandler propertyHandler = PropertyHandler.getInstance();
+    private final BotProfile profile;
+    private final BotSettings settings;
     private final float minAttackDistance;
     private final float maxAttackDistance;
     private List<ConnectedClientConfig> teamMembers;
     private List<ConnectedClientConfig> enemyTeamMembers;
     private MapVisualiser visualiser;
+    // Only sends the visualiser changed paths / graphs, from its own thread
+    private VisualiserUpdater visualiserUpdater;
+    // Navigation data only depends on the map, so it is built once and reused every tick
+    private MapDefinition navigationMap;
+    private NavigationGraph navigationGraph;
+    private Graph visualiserGraph;
+    // Line of sight per tile, loaded (or computed on first use of a map) in the background
+    private CompletableFuture<VisibilityField> visibilityField = CompletableFuture.completedFuture(null);
+    private final MessageDispatcher messageDispatcher;
+    private final OutboundMessages outboundMessages;
+    private final List<OutboundMessages.Message> teamGreetings = new ArrayList<>();
+    private OutboundMessages.Message enemyTaunt;
+    private final TickProfiler profiler;
+    // Everything printed during a tick goes through the asynchronous log
+    private final EventLog events;
+    private ReplayRecorder replay = ReplayRecorder.disabled();
+    private List<ConnectedClientConfig> allClients;
+    // Path search, pitch solving and line of fire checks run on the planner's own thread
+    private BackgroundPlanner planner;
+    // Positions of all living enemies, rebuilt once per tick
+    private SpatialIndex enemyIndex;
+    // Recent enemy positions, to lead shots at moving targets
+    private final EnemyTracker enemyTracker = new EnemyTracker();
+    private final float[] enemyVelocity = new float[3];
+    private final int[] nearestEnemies = new int[TARGET_CANDIDATES];
+    private long serverTick;
 
     public MyBot() {
-        this.minAttackDistance = Float.parseFloat(propertyHandler.getProperty("bot.attack.minDistance"));
-        this.maxAttackDistance = Float.parseFloat(propertyHandler.getProperty("bot.attack.maxDistance"));
+        this(BotProfile.fromProperties(PropertyHandler.getInstance()));
+    }
+
+    public MyBot(BotProfile profile) {
+        this(profile, BotSettings.fromProperties(PropertyHandler.getInstance()));
+    }
+
+    public MyBot(BotProfile profile, BotSettings settings) {
+        this.profile = profile;
+        this.settings = settings;
+        this.minAttackDistance = settings.minAttackDistance();
+        this.maxAttackDistance = settings.maxAttackDistance();
+        this.profiler = settings.diagnostics()
+                ? TickProfiler.fromProperties(propertyHandler, profile.name())
+                : TickProfiler.disabled(profile.name());
+        this.events = settings.diagnostics() ? EventLog.shared() : EventLog.off();
+        this.messageDispatcher = new MessageDispatcher(profile.name(), events)
+                .register(Hit.class, this::handleHittingTank)
+                .register(GotHit.class, this::handleGettingHit)
+                .register(TeamScored.class, (world, teamScored) ->
+                        events.log(EventLog.Type.TEAM_SCORED, profile.name(), teamScored.team(), null, teamScored.score(), 0, 0, 0))
+                .register(SimpleTextMessage.class, (world, textMessage) ->
+                        events.log(EventLog.Type.TEXT_MESSAGE, profile.name(), textMessage.message()));
+        this.outboundMessages = new OutboundMessages(
+                Long.parseLong(propertyHandler.getProperty("bot.messages.repeatIntervalMs")) * 1_000_000L);
     }
 
     public static void main(String[] args) {
@@ -53,17 +109,15 @@ public class MyBot implements BotInterface {
         return LocalBotConfig.builder()
                 .debugMode(Optional.ofNullable(propertyHandler.getProperty("debug.mode"))
                         .map(GameWorld.DebugMode::valueOf))
-                .botName(propertyHandler.getProperty("bot.name"))
+                .botName(profile.name())
                 .tankType(LightTank.class)
                 .serverIp(propertyHandler.getProperty("server.ip"))
                 .serverPort(Integer.parseInt(propertyHandler.getProperty("server.port")))
                 .lobbyConfig(LobbyConfig.builder()
                         .lobbyName(propertyHandler.getProperty("lobby.name"))
-                        .teamName(propertyHandler.getProperty("lobby.name"))
-                        .teamName(propertyHandler.getProperty("lobby.team.name"))
+                        .teamName(profile.teamName())
                         .mapName(propertyHandler.getProperty("lobby.map.name"))
-                        .spawnPoint(Optional.ofNullable(propertyHandler.getProperty("lobby.spawnPoint"))
-                                .map(Integer::parseInt))
+                        .spawnPoint(profile.spawnPoint())
                         .fillEmptySlots(Boolean.parseBoolean(propertyHandler.getProperty("lobby.fillEmptySlots")))
                         .build()
                 )
@@ -84,6 +138,20 @@ public class MyBot implements BotInterface {
         teamMembers = config.getTeamMembers(myTeamConfig.teamName(), config.clientId());
         // Get all enemy team members
         enemyTeamMembers = config.getTeamMembers(enemyTeamConfig.teamName());
+        allClients = config.connectedClientConfigs();
+
+        // Sending a nice message to every team member and a less nice one to the enemy team, created once and
+        // reused every tick. A team target would also deliver the greeting back to myself, so teammates get one each.
+        teamGreetings.clear();
+        for (ConnectedClientConfig member : teamMembers) {
+            teamGreetings.add(outboundMessages.message(CLIENT.get(member.clientId()),
+                    "Hello " + member.clientName() + " from " + config.getMyConfig().clientName() + "!"));
+        }
+        enemyTaunt = outboundMessages.message(TEAM.get(enemyTeamConfig.teamName()),
+                "You're going down, " + enemyTeamConfig.teamName() + "!");
+
+        // A repeated setup (e.g. a new match) replaces the threads of the previous one
+        closeMatch();
 
         // If in debug, add visualiser
         if (world.isDebug()) {
@@ -94,25 +162,70 @@ public class MyBot implements BotInterface {
             visualiser.setMaxWindowHeight(1000);
             visualiser.setMaxWindowWidth(1200);
             visualiser.showMap();
+            visualiserUpdater = new VisualiserUpdater(visualiser, profile.name(), VISUALISER_UPDATE_INTERVAL_MILLIS);
+        }
+
+        updateNavigation(config.mapDefinition());
+        planner = new BackgroundPlanner(profile.name(), settings.asyncPlanning(), events);
+
+        profiler.setDefaultTickBudget(config.tickRate());
+        profiler.startExport();
+
+        if (settings.diagnostics()) {
+            replay = ReplayRecorder.fromProperties(propertyHandler, profile.name());
         }
+        outboundMessages.onSend(replay::recordOutgoing);
     }
 
+    /// Stops the bot's background threads and closes its profiler and replay, once the bot is done for good.
     @Override
-    public void processTick(PublicGameWorld world) {
-        Graph graph = new Graph(world.getGameConfig().mapDefinition(), false);
-        LinkedList<Node> path = new LinkedList<>(); // TODO: Implement pathfinding (optimally you would only calculate this every now and then, not every tick)
+    public void close() {
+        closeMatch();
+        profiler.close();
+    }
+
+    /// Stops what [#setup] started for one match.
+    private void closeMatch() {
+        if (planner != null) {
+            planner.close();
+        }
+        if (visualiserUpdater != null) {
+            visualiserUpdater.close();
+            visualiserUpdater = null;
+        }
+        replay.close();
+        replay = ReplayRecorder.disabled();
+    }
 
-        if (visualiser != null) {
-            // sets the path to be visualised
-            visualiser.setPath(path);
-            visualiser.setGraph(graph);
+    @Override
+    public void processTick(PublicGameWorld world) {
+        long tickStart = System.nanoTime();
+        // The server's tick, not the number of processTick calls, so ticks the bot misses still count
+        serverTick = world.getTick();
+        profiler.beginTick();
+        replay.beginTick(serverTick);
+        try {
+            runTick(world);
+        } finally {
+            profiler.endTick();
+            replay.endTick(System.nanoTime() - tickStart);
         }
+    }
+
+    private void runTick(PublicGameWorld world) {
+        long phaseStart = profiler.start();
+        updateNavigation(world.getGameConfig().mapDefinition());
+        profiler.end(TickProfiler.Phase.GRAPH, phaseStart);
+
+        // Recorded before the dead check, so the replay also covers the rest of the match
+        replay.recordStates(world, allClients);
+        replay.recordIncoming(world.getIncomingMessages());
 
         ClientState myClientState = world.getMyState();
 
         // If dead, do nothing. Early return.
         if (myClientState.state() == ClientState.PlayerState.DEAD) {
-            System.out.println("I'm dead!");
+            events.log(EventLog.Type.DEAD, profile.name());
             return;
         }
 
@@ -129,121 +242,216 @@ public class MyBot implements BotInterface {
         GameConfig config = world.getGameConfig();
 
         // Get the closest enemy tank
-        Optional<ClientState> closestEnemy = enemyTeamMembers.stream()
-                .map(connectedClientConfig -> world.getClientState(connectedClientConfig.clientId()))
-                // Filter out null states, states without a position and dead states
-                .filter(clientState -> clientState != null && clientState.transformBody().getTranslation() != null &&
-                        clientState.state() != ClientState.PlayerState.DEAD)
-                .min((o1, o2) -> {
-                    double distance1 = myClientState.transformBody().getTranslation().distance(o1.transformBody().getTranslation());
-                    double distance2 = myClientState.transformBody().getTranslation().distance(o2.transformBody().getTranslation());
-                    return Double.compare(distance1, distance2);
-                });
+        phaseStart = profiler.start();
+        updateEnemyIndex(world);
+        enemyTracker.update(enemyIndex, gameTimeNanos(config) / 1e9f);
+        Optional<ClientState> closestEnemy = findClosestEnemy(world, myClientState);
+        profiler.end(TickProfiler.Phase.TARGETING, phaseStart);
+
+        // Hand the planner this tick's situation and pick up the latest plan it finished.
+        // Path search, pitch solving and the line of fire check all run on the planner's thread.
+        phaseStart = profiler.start();
+        MapDefinition mapDefinition = config.mapDefinition();
+        Vec3 myPosition = myClientState.transformBody().getTranslation();
+        int myNode = nodeAt(myPosition);
+        long enemyId = -1;
+        Vec3 aimTarget = null;
+        enemyVelocity[0] = enemyVelocity[1] = enemyVelocity[2] = 0;
+        if (closestEnemy.isPresent()) {
+            ClientState enemy = closestEnemy.get();
+            ConnectedClientConfig enemyConfig = enemy.getConnectedClientConfig(world);
+            TankConfig enemyTankConfig = world.getTankConfig(enemyConfig.clientTankType()).orElseThrow();
+            Vec3 heightOffset = new Vec3(0, enemyTankConfig.size().getY() / 2.0, 0); // Offset to aim at the center of the enemy tank
+            enemyId = enemyConfig.clientId();
+            aimTarget = enemy.transformBody().getTranslation().add(heightOffset);
+            enemyTracker.velocity(enemyId, enemyVelocity);
+        }
+        planner.submit(new PlanningSnapshot(gameTimeNanos(config), navigationGraph,
+                BallisticSolver.of(config.tickRate(), myTankConfig.projectileSpeed(), myTankConfig.projectileGravity()),
+                myTankConfig.turretMinPitch(), myTankConfig.turretMaxPitch(),
+                myNode, (float) myPosition.getX(), (float) (myPosition.getY() + myTankConfig.size().getY() / 2),
+                (float) myPosition.getZ(),
+                enemyId, aimTarget == null ? -1 : nodeAt(aimTarget),
+                aimTarget == null ? 0 : (float) aimTarget.getX(),
+                aimTarget == null ? 0 : (float) aimTarget.getY(),
+                aimTarget == null ? 0 : (float) aimTarget.getZ(),
+                enemyVelocity[0], enemyVelocity[1], enemyVelocity[2]));
+        Plan plan = planner.latestPlan();
+        profiler.end(TickProfiler.Phase.PLANNING, phaseStart);
+
+        if (visualiserUpdater != null) {
+            // sets the path to be visualised, if it changed
+            visualiserUpdater.update(plan, navigationGraph, visualiserGraph);
+        }
 
         // Move towards the closest enemy and shoot when close enough, or move in a circle if no enemies are found
-        closestEnemy.ifPresentOrElse(
-                enemy -> {
-                    // If enemy is within attack range, shoot; otherwise, move accordingly
-                    double distanceToEnemy = myClientState.transformBody().getTranslation().distance(enemy.transformBody().getTranslation());
-
-                    if (distanceToEnemy < this.minAttackDistance) {
-                        // Move away from enemy if too close
-                        tank.moveTowards(world, Tank.MoveDirection.BACKWARD, enemy.transformBody().getTranslation(), true);
-                    } else if (distanceToEnemy > this.maxAttackDistance) {
-                        // Move towards enemy if too far
-                        tank.moveTowards(world, Tank.MoveDirection.FORWARD, enemy.transformBody().getTranslation(), true);
-                    }
-                    ConnectedClientConfig enemyConfig = enemy.getConnectedClientConfig(world);
-                    TankConfig enemyTankConfig = world.getTankConfig(enemyConfig.clientTankType()).orElseThrow();
-                    Vec3 heightOffset = new Vec3(0, enemyTankConfig.size().getY() / 2.0, 0); // Offset to aim at the center of the enemy tank
-                    tank.rotateTurretTowards(world, enemy.transformBody().getTranslation().add(heightOffset));
-
-                    if (distanceToEnemy <= this.maxAttackDistance) {
-                        // You can check if you can shoot before shooting
-                        if (tank.canShoot(world)) {
-                            // Or also just shoot, it will return false if you can't shoot.
-                            // And by checking the world, if debug is enabled, you can print out a message.
-                            if (tank.shoot(world) && world.isDebug()) {
-                                System.out.println("Shot at enemy!");
-                            }
-                        }
+        phaseStart = profiler.start();
+        if (closestEnemy.isPresent()) {
+            ClientState enemy = closestEnemy.get();
+            // The plan may still be for a previous target, only use it if it matches
+            boolean planForEnemy = plan.targetId() == enemyId;
+
+            // If enemy is within attack range, shoot; otherwise, move accordingly
+            double distanceToEnemy = myPosition.distance(enemy.transformBody().getTranslation());
+
+            if (distanceToEnemy < this.minAttackDistance) {
+                // Move away from enemy if too close
+                tank.moveTowards(world, Tank.MoveDirection.BACKWARD, enemy.transformBody().getTranslation(), true);
+            } else if (distanceToEnemy > this.maxAttackDistance) {
+                // Move towards enemy if too far, following the planned path if there is one
+                int waypoint = planForEnemy ? plan.nextWaypoint(myNode) : -1;
+                Vec3 moveTarget = waypoint < 0
+                        ? enemy.transformBody().getTranslation()
+                        : mapDefinition.getWorldTileCenter(navigationGraph.nodeX(waypoint), navigationGraph.nodeZ(waypoint));
+                tank.moveTowards(world, Tank.MoveDirection.FORWARD, moveTarget, true);
+            }
+
+            boolean canHit = planForEnemy && plan.canShoot();
+            tank.rotateTurretTowards(world, canHit ? new Vec3(plan.aimX(), plan.aimY(), plan.aimZ()) : aimTarget);
+
+            // Don't waste the cooldown if the target is out of reach or terrain is in the way
+            if (distanceToEnemy <= this.maxAttackDistance && canHit) {
+                // You can check if you can shoot before shooting
+                if (tank.canShoot(world)) {
+                    // Or also just shoot, it will return false if you can't shoot.
+                    // And by checking the world, if debug is enabled, you can print out a message.
+                    if (tank.shoot(world)) {
+                        replay.recordShot();
+                        events.log(EventLog.Type.SHOT, profile.name());
                     }
-                },
-                () -> {
-                    // No enemies found, move in a circle (negative is clockwise for yaw rotation)
-                    tank.rotateBody(world, -myTankConfig.bodyRotationSpeed());
-                    tank.move(world, Tank.MoveDirection.FORWARD);
                 }
-        );
-
-        // Get messages of a specific type only
-        List<MessageContainer> hitMessages = world.getIncomingMessages(Hit.class);
-        for (MessageContainer message : hitMessages) {
-            Hit gotHitMessageData = (Hit) message.getMessage();
-            handleHittingTank(world, gotHitMessageData);
-        }
-
-        // Get all messages
-        List<MessageContainer> messages = world.getIncomingMessages();
-        for (MessageContainer message : messages) {
-            MessageData data = message.getMessage();
-
-            switch (data) {
-                case SimpleTextMessage textMessage ->
-                        System.out.println("Received text message:\n\t" + textMessage.message());
-                case GotHit gotHitMessageData -> handleGettingHit(world, gotHitMessageData);
-                case Hit _ -> {
-                    // We already handled this message type above
+            }
+        } else {
+            // No enemies found, move in a circle (negative is clockwise for yaw rotation)
+            tank.rotateBody(world, -myTankConfig.bodyRotationSpeed());
+            tank.move(world, Tank.MoveDirection.FORWARD);
+        }
+
+        profiler.end(TickProfiler.Phase.MOVEMENT, phaseStart);
+
+        phaseStart = profiler.start();
+        handleIncomingMessages(world);
+        sendMessages(world, config);
+        profiler.end(TickProfiler.Phase.MESSAGING, phaseStart);
+    }
+
+    // The methods below are package-private so the benchmarks can measure them on their own
+
+    /// Takes this tick's snapshot of all enemy positions. Call once per tick before any spatial query.
+    void updateEnemyIndex(PublicGameWorld world) {
+        enemyIndex.rebuild(world, enemyTeamMembers);
+    }
+
+    /// The closest enemy in sight, or the closest enemy at all if none of the nearest ones is in sight
+    /// (or the visibility field isn't ready yet).
+    Optional<ClientState> findClosestEnemy(PublicGameWorld world, ClientState myClientState) {
+        Vec3 myPosition = myClientState.transformBody().getTranslation();
+        int count = enemyIndex.nearestK((float) myPosition.getX(), (float) myPosition.getY(), (float) myPosition.getZ(),
+                TARGET_CANDIDATES, nearestEnemies);
+        if (count == 0) {
+            return Optional.empty();
+        }
+
+        int closest = nearestEnemies[0];
+        VisibilityField visibility = visibilityField.getNow(null);
+        if (visibility != null) {
+            // Same world to tile mapping as the path planning
+            int myNode = nodeAt(myPosition);
+            int myX = navigationGraph.nodeX(myNode);
+            int myZ = navigationGraph.nodeZ(myNode);
+            for (int i = 0; i < count; i++) {
+                int enemy = nearestEnemies[i];
+                int enemyNode = nodeAt(enemyIndex.state(enemy).transformBody().getTranslation());
+                if (visibility.isVisible(myX, myZ, navigationGraph.nodeX(enemyNode), navigationGraph.nodeZ(enemyNode))) {
+                    closest = enemy;
+                    break;
                 }
-                case TeamScored teamScoredMessageData ->
-                        System.out.println("Team " + teamScoredMessageData.team() + " scored a point! Score: " + teamScoredMessageData.score());
-                // Not handled messages
-                default ->
-                        System.err.println("Received unhandled message \"" + data.getClass().getSimpleName() + "\":\n\t" + data);
             }
         }
+        return Optional.of(enemyIndex.state(closest));
+    }
 
-        // Sending a nice message to all team members (individually, you could also send a single message to full team)
-        teamMembers
-                .forEach(target -> world.send(new MessageContainer(
-                        CLIENT.get(target.clientId()),
-                        new SimpleTextMessage(
-                                "Hello " + target.clientName() + " from " + config.getMyConfig().clientName() + "!"
-                        )
-                )));
+    void handleIncomingMessages(PublicGameWorld world) {
+        // Every message is visited once and routed by type to the handlers registered in the constructor
+        messageDispatcher.dispatch(world);
+    }
 
-        // Sending a less nice message to all enemy team members
-        enemyTeamMembers
-                .forEach(target -> world.send(new MessageContainer(
-                        CLIENT.get(target.clientId()),
-                        new SimpleTextMessage(
-                                "You're going down, " + target.clientName() + "!"
-                        )
-                )));
+    void sendMessages(PublicGameWorld world, GameConfig config) {
+        // Queue the messages for this tick, they are deduplicated and rate limited, then sent in one flush
+        for (int i = 0; i < teamGreetings.size(); i++) {
+            outboundMessages.queue(teamGreetings.get(i));
+        }
+        outboundMessages.queue(enemyTaunt);
+        outboundMessages.flush(world, gameTimeNanos(config));
+    }
+
+    /// Makes sure the navigation graph belongs to the given map.
+    /// Same map instance: nothing to do. Otherwise the graph is taken from the per-map cache,
+    /// which only builds a new one if the map content actually changed.
+    private void updateNavigation(MapDefinition mapDefinition) {
+        if (mapDefinition == navigationMap) {
+            return;
+        }
+
+        NavigationGraph graph = NavigationGraph.of(mapDefinition, false);
+        if (graph != navigationGraph && visualiser != null) {
+            visualiserGraph = new Graph(mapDefinition, false);
+        }
+        if (graph != navigationGraph) {
+            enemyIndex = new SpatialIndex(graph.width(), graph.depth(), SPATIAL_CELL_SIZE);
+            loadVisibility(graph);
+        }
+        navigationGraph = graph;
+        navigationMap = mapDefinition;
+    }
+
+    /// Loads the map's visibility field off the tick thread; until it is there, targeting ignores line of sight.
+    private void loadVisibility(NavigationGraph graph) {
+        if (settings.visibilityCache().isEmpty()) {
+            return;
+        }
+        Path directory = settings.visibilityCache().get();
+        String mapName = Optional.ofNullable(propertyHandler.getProperty("lobby.map.name")).orElse("map");
+        visibilityField = VisibilityField.load(directory, mapName, graph).exceptionally(e -> {
+            System.err.println("Could not load the visibility field: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /// Game time of the current server tick, so it advances exactly like the game does.
+    private long gameTimeNanos(GameConfig config) {
+        return (long) (serverTick * 1_000_000_000.0 / config.tickRate());
+    }
+
+    /// The node of the tile a world position is on, mapped like everywhere else (see [NavigationGraph#nodeAt]).
+    private int nodeAt(Vec3 worldPosition) {
+        return navigationGraph.nodeAt(worldPosition.getX(), worldPosition.getZ());
     }
 
     private void handleHittingTank(PublicGameWorld world, Hit hitMessageData) {
+        if (!events.isEnabled(EventLog.Type.HIT)) {
+            return;
+        }
         ConnectedClientConfig targetConfig = world.getConnectedClientConfig(hitMessageData.hitEntity()).orElseThrow();
         TankConfig targetTankConfig = targetConfig.getTankConfig(world);
         TankConfig myTankConfig = world.getTank().getConfig(world);
-        float armorOnHitSide = targetTankConfig.armor().get(hitMessageData.hitSide());
+        // No armor entry (e.g. no hit side in the message) counts as no armor, logging must never fail the tick
+        float armorOnHitSide = targetTankConfig.armor().getOrDefault(hitMessageData.hitSide(), 0f);
         float myExpectedDamage = myTankConfig.projectileDamage();
         float dealtDamage = hitMessageData.damageDealt();
         ClientState targetState = targetConfig.getClientState(world);
-        System.out.println("Hit " + targetConfig.clientName() + " on " + hitMessageData.hitSide() + " side!");
-        // print out how the damage was calculated
-        System.out.println("Dealt damage: " + dealtDamage + " = " + myExpectedDamage + " * (1 - " + armorOnHitSide + ")");
-        System.out.println(targetConfig.clientName() + " health: " + targetState.currentHealth());
+        // log how the damage was calculated
+        events.log(EventLog.Type.HIT, profile.name(), targetConfig.clientName(), hitMessageData.hitSide(),
+                dealtDamage, myExpectedDamage, armorOnHitSide, targetState.currentHealth());
     }
 
     private void handleGettingHit(PublicGameWorld world, GotHit gotHitMessageData) {
         ConnectedClientConfig shooterConfig = world.getConnectedClientConfig(gotHitMessageData.shooterEntity()).orElseThrow();
-        System.out.println("Got hit by " + shooterConfig.clientName() + " on " + gotHitMessageData.hitSide());
-        System.out.println("Received " + gotHitMessageData.damageReceived() + " damage!");
-        System.out.println("Current health: " + world.getMyState().currentHealth());
+        events.log(EventLog.Type.GOT_HIT, profile.name(), shooterConfig.clientName(), gotHitMessageData.hitSide(),
+                gotHitMessageData.damageReceived(), world.getMyState().currentHealth(), 0, 0);
 
         if (world.getMyState().state() == ClientState.PlayerState.DEAD) {
-            System.out.println("I died! killed by " + shooterConfig.clientName());
+            events.log(EventLog.Type.DIED, profile.name(), shooterConfig.clientName());
         }
     }
 }
@@ -0,0 +1,274 @@
+import dev.zwazel.internal.game.map.MapDefinition;
+import dev.zwazel.internal.game.transform.Vec3;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// Compact, immutable navigation graph of a map's tile grid.
+///
+/// Every tile is a node with the plain int id `x + z * width`. Edges are stored in CSR form:
+/// the neighbours of node `n` are `edgeTargets[edgeOffsets[n] .. edgeOffsets[n + 1])`, with the
+/// matching traversal cost in `edgeCosts`. There are no per-node objects, so building and walking
+/// the graph produces no garbage.
+///
+/// The map never changes during a match, so graphs are cached per map content. Use [#of(MapDefinition, boolean)]
+/// to get the graph for a map; it is only rebuilt when a map with different heights shows up. The cache keeps the
+/// [#CACHE_SIZE] most recently used graphs, so the simulator and the tuner, which see a new map per seed, don't
+/// keep every graph alive.
+///
+/// The graph also owns the one world to tile mapping everyone uses ([#tileX(double)], [#tileZ(double)],
+/// [#nodeAt(double, double)]): path planning, the line of fire, visibility and the simulator all look at the same
+/// tile for the same point. It follows the map's own [MapDefinition#getClosestTileFromWorld], which is probed once
+/// when the graph is built, without calling into the map (and allocating) for every lookup.
+public final class NavigationGraph {
+    /// Extra cost per unit of height difference between two neighbouring tiles.
+    public static final float HEIGHT_COST_FACTOR = 2.0f;
+
+    private static final float DIAGONAL_COST = (float) Math.sqrt(2.0);
+    private static final int CACHE_SIZE = 16;
+    /// Least recently used first. Guarded by itself.
+    private static final LinkedHashMap<MapKey, NavigationGraph> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MapKey, NavigationGraph> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final int width;
+    private final int depth;
+    private final boolean allowDiagonal;
+    private final boolean uniformHeight;
+    private final int contentHash;
+    private final float[] heights;
+    private final float tileShift;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final float[] edgeCosts;
+
+    private NavigationGraph(int width, int depth, float[] heights, boolean allowDiagonal, int contentHash,
+                            float tileShift) {
+        this.width = width;
+        this.depth = depth;
+        this.heights = heights;
+        this.tileShift = tileShift;
+        this.allowDiagonal = allowDiagonal;
+        this.contentHash = contentHash;
+
+        boolean uniform = true;
+        for (int i = 1; i < heights.length && uniform; i++) {
+            uniform = heights[i] == heights[0];
+        }
+        this.uniformHeight = uniform;
+
+        int nodeCount = width * depth;
+        int maxEdges = nodeCount * (allowDiagonal ? 8 : 4);
+        int[] targets = new int[maxEdges];
+        float[] costs = new float[maxEdges];
+        this.edgeOffsets = new int[nodeCount + 1];
+
+        int edge = 0;
+        for (int z = 0; z < depth; z++) {
+            for (int x = 0; x < width; x++) {
+                int node = x + z * width;
+                edgeOffsets[node] = edge;
+                for (int dz = -1; dz <= 1; dz++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if ((dx == 0 && dz == 0) || (!allowDiagonal && dx != 0 && dz != 0)) {
+                            continue;
+                        }
+                        int nx = x + dx;
+                        int nz = z + dz;
+                        if (nx < 0 || nz < 0 || nx >= width || nz >= depth) {
+                            continue;
+                        }
+                        int neighbour = nx + nz * width;
+                        float step = (dx != 0 && dz != 0) ? DIAGONAL_COST : 1.0f;
+                        targets[edge] = neighbour;
+                        costs[edge] = step + HEIGHT_COST_FACTOR * Math.abs(heights[neighbour] - heights[node]);
+                        edge++;
+                    }
+                }
+            }
+        }
+        edgeOffsets[nodeCount] = edge;
+        this.edgeTargets = Arrays.copyOf(targets, edge);
+        this.edgeCosts = Arrays.copyOf(costs, edge);
+    }
+
+    /// Returns the (cached) navigation graph for the given map.
+    /// The graph is only built the first time a map with this content is seen.
+    public static NavigationGraph of(MapDefinition mapDefinition, boolean allowDiagonal) {
+        float[][] tiles = mapDefinition.tiles();
+        int width = (int) mapDefinition.width();
+        int depth = (int) mapDefinition.depth();
+        MapKey key = new MapKey(width, depth, flatten(width, depth, tiles), allowDiagonal);
+
+        NavigationGraph graph;
+        synchronized (CACHE) {
+            graph = CACHE.get(key);
+        }
+        if (graph != null) {
+            return graph;
+        }
+
+        // Built outside the lock, so threads with different maps don't wait for each other
+        graph = new NavigationGraph(width, depth, key.heights, allowDiagonal, contentHash(width, depth, tiles),
+                tileShift(mapDefinition));
+        synchronized (CACHE) {
+            NavigationGraph existing = CACHE.putIfAbsent(key, graph);
+            return existing != null ? existing : graph;
+        }
+    }
+
+    /// Builds an uncached graph from a raw height grid, indexed as `heights[z][x]`.
+    /// Tile `(x, z)` covers the world area `[x, x + 1) x [z, z + 1)`.
+    public static NavigationGraph fromHeights(float[][] heights, boolean allowDiagonal) {
+        int depth = heights.length;
+        int width = depth == 0 ? 0 : heights[0].length;
+        return new NavigationGraph(width, depth, flatten(width, depth, heights), allowDiagonal,
+                contentHash(width, depth, heights), 0);
+    }
+
+    /// `0` if the map's tile `x` covers world `[x, x + 1)`, `0.5` if it is centered on `x`.
+    private static float tileShift(MapDefinition mapDefinition) {
+        Vec3 tile = mapDefinition.getClosestTileFromWorld(new Vec3(0.75, 0, 0.75));
+        return tile.getX() >= 1 ? 0.5f : 0;
+    }
+
+    private static float[] flatten(int width, int depth, float[][] tiles) {
+        float[] flat = new float[width * depth];
+        for (int z = 0; z < depth; z++) {
+            System.arraycopy(tiles[z], 0, flat, z * width, width);
+        }
+        return flat;
+    }
+
+    private static int contentHash(int width, int depth, float[][] tiles) {
+        return 31 * (31 * width + depth) + Arrays.deepHashCode(tiles);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int nodeCount() {
+        return width * depth;
+    }
+
+    public boolean allowsDiagonal() {
+        return allowDiagonal;
+    }
+
+    /// True if every tile has the same height, i.e. all straight edges cost the same.
+    public boolean hasUniformHeight() {
+        return uniformHeight;
+    }
+
+    public int contentHash() {
+        return contentHash;
+    }
+
+    public int nodeId(int x, int z) {
+        return x + z * width;
+    }
+
+    public int nodeX(int node) {
+        return node % width;
+    }
+
+    public int nodeZ(int node) {
+        return node / width;
+    }
+
+    /// Tile column of a world x coordinate, clamped to the map.
+    public int tileX(double worldX) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(worldX + tileShift)));
+    }
+
+    /// Tile row of a world z coordinate, clamped to the map.
+    public int tileZ(double worldZ) {
+        return Math.max(0, Math.min(depth - 1, (int) Math.floor(worldZ + tileShift)));
+    }
+
+    /// The node of the tile a world position is on.
+    public int nodeAt(double worldX, double worldZ) {
+        return nodeId(tileX(worldX), tileZ(worldZ));
+    }
+
+    /// World coordinate of the center of tile column or row `tile`.
+    public float tileCenter(int tile) {
+        return tile + 0.5f - tileShift;
+    }
+
+    /// How far tile edges are shifted against whole world coordinates: tile `x` covers world
+    /// `[x - tileShift, x + 1 - tileShift)`.
+    public float tileShift() {
+        return tileShift;
+    }
+
+    public boolean contains(int x, int z) {
+        return x >= 0 && z >= 0 && x < width && z < depth;
+    }
+
+    public float height(int node) {
+        return heights[node];
+    }
+
+    public float height(int x, int z) {
+        return heights[x + z * width];
+    }
+
+    /// The flat height array, row-major (`x + z * width`). Shared, do not modify.
+    public float[] heights() {
+        return heights;
+    }
+
+    public int firstEdge(int node) {
+        return edgeOffsets[node];
+    }
+
+    public int endEdge(int node) {
+        return edgeOffsets[node + 1];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public float edgeCost(int edge) {
+        return edgeCosts[edge];
+    }
+
+    /// Compares the full height grid, a hash alone could mix up two maps.
+    private static final class MapKey {
+        private final int width;
+        private final int depth;
+        private final float[] heights;
+        private final boolean allowDiagonal;
+        private final int hash;
+
+        private MapKey(int width, int depth, float[] heights, boolean allowDiagonal) {
+            this.width = width;
+            this.depth = depth;
+            this.heights = heights;
+            this.allowDiagonal = allowDiagonal;
+            this.hash = 31 * (31 * (31 * width + depth) + Arrays.hashCode(heights)) + Boolean.hashCode(allowDiagonal);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MapKey key && width == key.width && depth == key.depth
+                    && allowDiagonal == key.allowDiagonal && Arrays.equals(heights, key.heights);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+/// Stands in for the interface library's interfaces (world, tank) when there is no server, e.g. in the simulator
+/// and the benchmark fixtures. Goes together with [RecordFactory] for the library's records.
+public final class OfflineProxies {
+    private OfflineProxies() {
+    }
+
+    /// A proxy of `type` that answers `hashCode`, `equals` and `toString` itself and everything else with `handler`.
+    ///
+    /// @param prefix put in front of the type name by `toString`, e.g. `Simulated` for `SimulatedTank`
+    @SuppressWarnings("unchecked")
+    public static <T> T create(Class<T> type, String prefix, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> prefix + type.getSimpleName();
+            default -> handler.handle(method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    /// A neutral answer for a method the proxy doesn't implement: `0`, `false`, an empty [Optional] or list,
+    /// otherwise `null`.
+    public static Object defaultReturn(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == Optional.class) return Optional.empty();
+        if (type == List.class) return List.of();
+        return null;
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
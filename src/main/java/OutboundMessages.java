@@ -0,0 +1,99 @@
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.message.MessageContainer;
+import dev.zwazel.internal.message.MessageTarget;
+import dev.zwazel.internal.message.data.SimpleTextMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Collects the text messages a bot wants to send during a tick and sends them in one go at the end of it.
+///
+/// Messages are interned: [#message(MessageTarget, String)] creates the [MessageContainer] once and hands out
+/// a [Message] handle, so queueing the same message again allocates nothing. Within a tick a message is only
+/// sent once no matter how often it is queued, and a message that was sent recently is held back until
+/// the repeat interval has passed.
+///
+/// Prefer team targets over one message per client, that's one message on the wire instead of one per player. A team
+/// target includes the sender if it is on that team, so messages for its own teammates still go to each client.
+public final class OutboundMessages {
+    private final long repeatIntervalNanos;
+    private final Map<Key, Message> interned = new HashMap<>();
+    private final List<Message> pending = new ArrayList<>();
+    private SendListener sendListener;
+    private long sentCount;
+    private long suppressedCount;
+
+    /// @param repeatIntervalNanos minimum time between two sends of the same message
+    public OutboundMessages(long repeatIntervalNanos) {
+        this.repeatIntervalNanos = repeatIntervalNanos;
+    }
+
+    /// Gets told about every message that is actually sent, e.g. to record it. Replaces an earlier listener.
+    public void onSend(SendListener listener) {
+        this.sendListener = listener;
+    }
+
+    /// The interned handle for this target and text. Create handles up front (e.g. in setup), not every tick.
+    public Message message(MessageTarget target, String text) {
+        return interned.computeIfAbsent(new Key(target, text),
+                key -> new Message(new MessageContainer(target, new SimpleTextMessage(text))));
+    }
+
+    /// Queues a message for the next [#flush(PublicGameWorld, long)]. Queueing it twice in a tick sends it once.
+    public void queue(Message message) {
+        if (!message.queued) {
+            message.queued = true;
+            pending.add(message);
+        }
+    }
+
+    /// Sends every queued message whose repeat interval has passed and clears the queue. Call once per tick.
+    public void flush(PublicGameWorld world, long nowNanos) {
+        for (int i = 0, count = pending.size(); i < count; i++) {
+            Message message = pending.get(i);
+            message.queued = false;
+            if (message.everSent && nowNanos - message.lastSentNanos < repeatIntervalNanos) {
+                suppressedCount++;
+                continue;
+            }
+            world.send(message.container);
+            if (sendListener != null) {
+                sendListener.sent(message.container);
+            }
+            message.lastSentNanos = nowNanos;
+            message.everSent = true;
+            sentCount++;
+        }
+        pending.clear();
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    /// Handle of an interned message, see [#message(MessageTarget, String)].
+    public static final class Message {
+        private final MessageContainer container;
+        private boolean queued;
+        private boolean everSent;
+        private long lastSentNanos;
+
+        private Message(MessageContainer container) {
+            this.container = container;
+        }
+    }
+
+    @FunctionalInterface
+    public interface SendListener {
+        void sent(MessageContainer container);
+    }
+
+    private record Key(MessageTarget target, String text) {
+    }
+}
@@ -0,0 +1,219 @@
+import dev.zwazel.PropertyHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/// Searches for good [BotSettings] by playing [SimulatedMatch]es against the current settings from `app.properties`.
+///
+/// Every candidate plays the same seeded maps, alternating sides so neither team's spawn edge favours it.
+/// The search runs in rounds (successive halving): each round tops every remaining candidate up to
+/// `matchesPerRound * round` matches, then drops the worse half, so losing configurations stop early and the
+/// matches go to the promising ones. All matches of a round run in parallel on a [ForkJoinPool].
+///
+/// Results are cached per settings vector, so a candidate that appears again (or survives into the next round)
+/// only plays the seeds it hasn't played yet.
+///
+/// Run with `[mapSize] [playersPerTeam] [matchesPerRound] [rounds] [outputFile]`, e.g. `50 2 20 4 tuned.properties`.
+/// Prints a ranked table and writes the best settings as a properties file that can be copied into `app.properties`.
+public final class ParameterTuner {
+    private final ForkJoinPool pool;
+    private final int mapSize;
+    private final int playersPerTeam;
+    private final long firstSeed;
+    private final BotSettings baseline;
+    private final Map<BotSettings, Score> cache = new ConcurrentHashMap<>();
+
+    public ParameterTuner(ForkJoinPool pool, int mapSize, int playersPerTeam, long firstSeed, BotSettings baseline) {
+        this.pool = pool;
+        this.mapSize = mapSize;
+        this.playersPerTeam = playersPerTeam;
+        this.firstSeed = firstSeed;
+        this.baseline = baseline.forSimulation();
+    }
+
+    /// All combinations of attack distances in the given ranges where the minimum is below the maximum.
+    public static List<BotSettings> grid(float minFrom, float minTo, float maxFrom, float maxTo, float step) {
+        List<BotSettings> candidates = new ArrayList<>();
+        for (float min = minFrom; min <= minTo + 1e-3f; min += step) {
+            for (float max = maxFrom; max <= maxTo + 1e-3f; max += step) {
+                if (min < max) {
+                    candidates.add(BotSettings.forSimulation(min, max));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /// Runs the search.
+    ///
+    /// @return the scores of all candidates, best first. Candidates dropped early rank below the ones that survived.
+    public List<Score> tune(List<BotSettings> candidates, int matchesPerRound, int rounds) {
+        List<Score> active = new ArrayList<>(candidates.size());
+        for (BotSettings candidate : candidates) {
+            active.add(cache.computeIfAbsent(candidate.forSimulation(), Score::new));
+        }
+        List<Score> all = new ArrayList<>(active);
+
+        for (int round = 1; round <= rounds && !active.isEmpty(); round++) {
+            int targetMatches = matchesPerRound * round;
+            List<Callable<Void>> matches = new ArrayList<>();
+            for (Score score : active) {
+                for (int match = score.matches(); match < targetMatches; match++) {
+                    int seedIndex = match;
+                    matches.add(() -> {
+                        play(score, seedIndex);
+                        return null;
+                    });
+                }
+            }
+            for (Future<Void> match : pool.invokeAll(matches)) {
+                try {
+                    match.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Tuning was interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A simulated match failed", e.getCause());
+                }
+            }
+
+            active.sort(Comparator.reverseOrder());
+            if (round < rounds) {
+                int survivors = Math.max(1, (active.size() + 1) / 2);
+                for (Score dropped : active.subList(survivors, active.size())) {
+                    dropped.droppedInRound = round;
+                }
+                active = new ArrayList<>(active.subList(0, survivors));
+            }
+            System.out.printf("Round %d: %d matches played, %d candidates left, best %s%n",
+                    round, matches.size(), active.size(), active.getFirst());
+        }
+
+        all.sort(Comparator.comparingInt((Score score) -> score.droppedInRound == 0 ? Integer.MAX_VALUE : score.droppedInRound)
+                .thenComparing(Comparator.naturalOrder())
+                .reversed());
+        return all;
+    }
+
+    private void play(Score score, int seedIndex) {
+        SimulationConfig config = SimulationConfig.randomMap(mapSize, playersPerTeam, firstSeed + seedIndex);
+        SimulatedMatch.BotFactory candidate = profile -> new MyBot(profile, score.settings);
+        SimulatedMatch.BotFactory opponent = profile -> new MyBot(profile, baseline);
+
+        // Alternate sides, so the candidate plays both spawn edges of every map size equally often
+        boolean candidateIsA = seedIndex % 2 == 0;
+        MatchResult result = candidateIsA
+                ? new SimulatedMatch(config, candidate, opponent).run()
+                : new SimulatedMatch(config, opponent, candidate).run();
+        score.add(result, candidateIsA);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int playersPerTeam = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int matchesPerRound = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        Path outputFile = Path.of(args.length > 4 ? args[4] : "tuned.properties");
+
+        BotSettings baseline = BotSettings.fromProperties(PropertyHandler.getInstance());
+        float maxDistance = Math.max(baseline.maxAttackDistance(), mapSize / 2f);
+        List<BotSettings> candidates = grid(1, maxDistance / 2, maxDistance / 4, maxDistance, Math.max(1, maxDistance / 8));
+
+        List<Score> ranking;
+        try (ForkJoinPool pool = new ForkJoinPool()) {
+            ParameterTuner tuner = new ParameterTuner(pool, mapSize, playersPerTeam, 0, baseline);
+            ranking = tuner.tune(candidates, matchesPerRound, rounds);
+        }
+
+        System.out.printf("%n%4s %12s %12s %8s %8s %10s %8s%n", "rank", "minDistance", "maxDistance", "matches", "score", "damage+/-", "dropped");
+        for (int i = 0; i < ranking.size(); i++) {
+            Score score = ranking.get(i);
+            System.out.printf(Locale.ROOT, "%4d %12.1f %12.1f %8d %8.3f %10.1f %8s%n", i + 1,
+                    score.settings.minAttackDistance(), score.settings.maxAttackDistance(), score.matches(),
+                    score.winRate(), score.averageDamageBalance(),
+                    score.droppedInRound == 0 ? "-" : "round " + score.droppedInRound);
+        }
+
+        Score best = ranking.getFirst();
+        Files.writeString(outputFile, String.format(Locale.ROOT, """
+                        # Tuned by ParameterTuner on %dx%d maps, %d players per team, against %s
+                        # Score %.3f over %d matches
+                        bot.attack.minDistance=%s
+                        bot.attack.maxDistance=%s
+                        """, mapSize, mapSize, playersPerTeam, baseline, best.winRate(), best.matches(),
+                best.settings.minAttackDistance(), best.settings.maxAttackDistance()));
+        System.out.println("\nBest settings written to " + outputFile.toAbsolutePath());
+    }
+
+    /// Accumulated results of one candidate. A win counts `1`, a draw `0.5`; ties are broken by the average
+    /// difference between damage dealt and damage taken.
+    public static final class Score implements Comparable<Score> {
+        private final BotSettings settings;
+        private int matches;
+        private int wins;
+        private int draws;
+        private double damageBalance;
+        private volatile int droppedInRound;
+
+        Score(BotSettings settings) {
+            this.settings = settings;
+        }
+
+        synchronized void add(MatchResult result, boolean candidateIsA) {
+            int candidateTeam = candidateIsA ? 0 : 1;
+            matches++;
+            if (result.winner() == candidateTeam) {
+                wins++;
+            } else if (result.winner() < 0) {
+                draws++;
+            }
+            damageBalance += candidateIsA
+                    ? result.damageDealtA() - result.damageDealtB()
+                    : result.damageDealtB() - result.damageDealtA();
+        }
+
+        public BotSettings settings() {
+            return settings;
+        }
+
+        public synchronized int matches() {
+            return matches;
+        }
+
+        public synchronized double winRate() {
+            return matches == 0 ? 0 : (wins + draws * 0.5) / matches;
+        }
+
+        public synchronized double averageDamageBalance() {
+            return matches == 0 ? 0 : damageBalance / matches;
+        }
+
+        /// The round this candidate was dropped in, `0` if it was never dropped.
+        public int droppedInRound() {
+            return droppedInRound;
+        }
+
+        @Override
+        public int compareTo(Score other) {
+            int byWinRate = Double.compare(winRate(), other.winRate());
+            return byWinRate != 0 ? byWinRate : Double.compare(averageDamageBalance(), other.averageDamageBalance());
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "min %.1f / max %.1f: %.3f over %d matches",
+                    settings.minAttackDistance(), settings.maxAttackDistance(), winRate(), matches());
+        }
+    }
+}
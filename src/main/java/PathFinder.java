@@ -0,0 +1,303 @@
+import java.util.Arrays;
+
+/// A* search over a [NavigationGraph].
+///
+/// All working memory (scores, parents, the open list) lives in arrays that are sized once per graph
+/// and reused for every search, so a search does not allocate. Instead of clearing those arrays between
+/// searches, every entry is stamped with the id of the search that last touched it.
+///
+/// The open list is an indexed binary min-heap over node ids, which supports decrease-key in `O(log n)`.
+///
+/// On graphs where every tile has the same height, every step costs the same, so the straight line from start to
+/// goal (diagonal steps first on 8-connected graphs, a staircase along the line on 4-connected ones) is an optimal
+/// path. That is what jump point search would return, so in that case the path is emitted directly without
+/// running a search at all.
+///
+/// A search can be given a deadline. If it runs out of time, it returns the path to the node closest to the goal
+/// it has reached so far, see [#isLastPathComplete()].
+public final class PathFinder {
+    /// Search until the goal is found or known to be unreachable.
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    /// How many nodes are expanded between two looks at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private NavigationGraph graph;
+
+    private float[] gScore = new float[0];
+    private float[] fScore = new float[0];
+    private int[] parent = new int[0];
+    private int[] seenStamp = new int[0];
+    private int[] closedStamp = new int[0];
+    private int stamp;
+
+    // Indexed binary heap: heap[i] is a node id, heapIndex[node] is its slot in heap (or -1)
+    private int[] heap = new int[0];
+    private int[] heapIndex = new int[0];
+    private int heapSize;
+
+    private boolean lastPathComplete;
+
+    /// Finds the cheapest path from `start` to `goal` and writes the node ids (start and goal included) into `out`.
+    ///
+    /// @return the number of nodes written, or `0` if there is no path or `out` is too small to hold it
+    public int findPath(NavigationGraph graph, int start, int goal, int[] out) {
+        return findPath(graph, start, goal, out, NO_DEADLINE);
+    }
+
+    /// Like [#findPath(NavigationGraph, int, int, int[])], but gives up at `deadlineNanos` (a [System#nanoTime()]
+    /// value) and then returns the path to the closest node to the goal found so far.
+    public int findPath(NavigationGraph graph, int start, int goal, int[] out, long deadlineNanos) {
+        prepare(graph);
+        lastPathComplete = true;
+
+        if (start == goal) {
+            if (out.length == 0) {
+                return 0;
+            }
+            out[0] = start;
+            return 1;
+        }
+
+        if (graph.hasUniformHeight()) {
+            return graph.allowsDiagonal() ? octilePath(start, goal, out) : staircasePath(start, goal, out);
+        }
+
+        return aStar(start, goal, out, deadlineNanos);
+    }
+
+    /// Whether the last path found ends at the goal. False if the search ran out of time and the path only leads
+    /// closer to it.
+    public boolean isLastPathComplete() {
+        return lastPathComplete;
+    }
+
+    private void prepare(NavigationGraph graph) {
+        if (graph == this.graph) {
+            return;
+        }
+
+        int nodeCount = graph.nodeCount();
+        this.graph = graph;
+        if (gScore.length < nodeCount) {
+            gScore = new float[nodeCount];
+            fScore = new float[nodeCount];
+            parent = new int[nodeCount];
+            seenStamp = new int[nodeCount];
+            closedStamp = new int[nodeCount];
+            heap = new int[nodeCount];
+            heapIndex = new int[nodeCount];
+        } else {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+        }
+        stamp = 0;
+    }
+
+    private int aStar(int start, int goal, int[] out, long deadlineNanos) {
+        if (++stamp == Integer.MAX_VALUE) {
+            // Stamp overflow, start from scratch
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        heapSize = 0;
+
+        int goalX = graph.nodeX(goal);
+        int goalZ = graph.nodeZ(goal);
+
+        seenStamp[start] = stamp;
+        gScore[start] = 0;
+        parent[start] = -1;
+        fScore[start] = heuristic(start, goalX, goalZ);
+        heapPush(start);
+
+        int closest = start;
+        float closestDistance = fScore[start];
+        int expanded = 0;
+        while (heapSize > 0) {
+            int current = heapPop();
+            if (current == goal) {
+                return reconstruct(goal, out);
+            }
+            closedStamp[current] = stamp;
+
+            float distance = fScore[current] - gScore[current];
+            if (distance < closestDistance) {
+                closest = current;
+                closestDistance = distance;
+            }
+            if (deadlineNanos != NO_DEADLINE && ++expanded % DEADLINE_CHECK_INTERVAL == 0
+                    && System.nanoTime() - deadlineNanos > 0) {
+                lastPathComplete = false;
+                return reconstruct(closest, out);
+            }
+
+            float currentScore = gScore[current];
+            for (int edge = graph.firstEdge(current), end = graph.endEdge(current); edge < end; edge++) {
+                int neighbour = graph.edgeTarget(edge);
+                if (closedStamp[neighbour] == stamp) {
+                    continue;
+                }
+
+                float tentative = currentScore + graph.edgeCost(edge);
+                if (seenStamp[neighbour] != stamp) {
+                    seenStamp[neighbour] = stamp;
+                    gScore[neighbour] = tentative;
+                    parent[neighbour] = current;
+                    fScore[neighbour] = tentative + heuristic(neighbour, goalX, goalZ);
+                    heapPush(neighbour);
+                } else if (tentative < gScore[neighbour]) {
+                    gScore[neighbour] = tentative;
+                    parent[neighbour] = current;
+                    fScore[neighbour] = tentative + heuristic(neighbour, goalX, goalZ);
+                    heapSiftUp(heapIndex[neighbour]);
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    /// Admissible distance estimate: Manhattan on 4-connected graphs, octile on 8-connected graphs.
+    /// Height differences only ever add cost, so they are left out.
+    private float heuristic(int node, int goalX, int goalZ) {
+        int dx = Math.abs(graph.nodeX(node) - goalX);
+        int dz = Math.abs(graph.nodeZ(node) - goalZ);
+        if (!graph.allowsDiagonal()) {
+            return dx + dz;
+        }
+        int diagonal = Math.min(dx, dz);
+        return (dx + dz - 2 * diagonal) + diagonal * 1.4142135f;
+    }
+
+    private int reconstruct(int goal, int[] out) {
+        int length = 0;
+        for (int node = goal; node != -1; node = parent[node]) {
+            length++;
+        }
+        if (length > out.length) {
+            return 0;
+        }
+
+        int index = length;
+        for (int node = goal; node != -1; node = parent[node]) {
+            out[--index] = node;
+        }
+        return length;
+    }
+
+    private int octilePath(int start, int goal, int[] out) {
+        int x = graph.nodeX(start);
+        int z = graph.nodeZ(start);
+        int goalX = graph.nodeX(goal);
+        int goalZ = graph.nodeZ(goal);
+        int length = Math.max(Math.abs(goalX - x), Math.abs(goalZ - z)) + 1;
+        if (length > out.length) {
+            return 0;
+        }
+
+        int stepX = Integer.signum(goalX - x);
+        int stepZ = Integer.signum(goalZ - z);
+        int count = 0;
+        out[count++] = start;
+        while (x != goalX || z != goalZ) {
+            if (x != goalX) {
+                x += stepX;
+            }
+            if (z != goalZ) {
+                z += stepZ;
+            }
+            out[count++] = graph.nodeId(x, z);
+        }
+        return count;
+    }
+
+    /// One straight step at a time, always along the axis that keeps the path closest to the line from start to goal.
+    private int staircasePath(int start, int goal, int[] out) {
+        int x = graph.nodeX(start);
+        int z = graph.nodeZ(start);
+        int goalX = graph.nodeX(goal);
+        int goalZ = graph.nodeZ(goal);
+        int dx = Math.abs(goalX - x);
+        int dz = Math.abs(goalZ - z);
+        if (dx + dz + 1 > out.length) {
+            return 0;
+        }
+
+        int stepX = Integer.signum(goalX - x);
+        int stepZ = Integer.signum(goalZ - z);
+        int count = 0;
+        int stepsX = 0;
+        int stepsZ = 0;
+        out[count++] = start;
+        while (stepsX < dx || stepsZ < dz) {
+            // Compares the fractions (stepsX + 0.5) / dx and (stepsZ + 0.5) / dz of the way along each axis
+            if (stepsZ == dz || (stepsX < dx && (2L * stepsX + 1) * dz <= (2L * stepsZ + 1) * dx)) {
+                x += stepX;
+                stepsX++;
+            } else {
+                z += stepZ;
+                stepsZ++;
+            }
+            out[count++] = graph.nodeId(x, z);
+        }
+        return count;
+    }
+
+    private void heapPush(int node) {
+        heap[heapSize] = node;
+        heapIndex[node] = heapSize;
+        heapSiftUp(heapSize++);
+    }
+
+    private int heapPop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            int last = heap[heapSize];
+            heap[0] = last;
+            heapIndex[last] = 0;
+            heapSiftDown(0);
+        }
+        return top;
+    }
+
+    private void heapSiftUp(int index) {
+        int node = heap[index];
+        float score = fScore[node];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentNode = heap[parentIndex];
+            if (fScore[parentNode] <= score) {
+                break;
+            }
+            heap[index] = parentNode;
+            heapIndex[parentNode] = index;
+            index = parentIndex;
+        }
+        heap[index] = node;
+        heapIndex[node] = index;
+    }
+
+    private void heapSiftDown(int index) {
+        int node = heap[index];
+        float score = fScore[node];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < heapSize && fScore[heap[right]] < fScore[heap[child]]) {
+                child = right;
+            }
+            if (score <= fScore[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = node;
+        heapIndex[node] = index;
+    }
+}
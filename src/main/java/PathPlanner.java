@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/// Keeps the last path and decides when it is worth searching again.
+///
+/// A new search only runs if
+/// - there is no path yet, or the goal tile changed, or we left the path, or the last search ran out of time
+///   before it reached the goal, and
+/// - the replan interval since the last search has passed (a changed goal bypasses this once the
+///   last search was cheaper than the per-tick budget).
+///
+/// A single search never runs much longer than the budget either: it stops at the budget and keeps the path to the
+/// node closest to the goal, which is extended by a later search (see [PathFinder#isLastPathComplete()]).
+///
+/// Between searches the planner only advances a cursor along the stored path, which costs nothing.
+///
+/// The budget is wall-clock time, so it makes replanning depend on how fast the machine is. Pass
+/// [#NO_BUDGET] for reproducible runs: then only the game time passed to [#update] decides.
+public final class PathPlanner {
+    /// Never stop a search or throttle goal changes by search duration.
+    public static final long NO_BUDGET = Long.MAX_VALUE;
+
+    private final PathFinder pathFinder = new PathFinder();
+    private final long replanIntervalNanos;
+    private final long tickBudgetNanos;
+
+    private NavigationGraph graph;
+    private int[] path = new int[0];
+    private int pathLength;
+    private int cursor;
+    private boolean complete;
+    private int goal = -1;
+    private long lastPlanNanos = Long.MIN_VALUE / 2;
+    private long lastSearchDurationNanos;
+    private int version;
+
+    /// @param replanIntervalNanos minimum time between two searches towards the same goal
+    /// @param tickBudgetNanos     how long a single search may take, and after which goal changes are throttled as
+    ///                            well. [#NO_BUDGET] to never stop a search or throttle goal changes
+    public PathPlanner(long replanIntervalNanos, long tickBudgetNanos) {
+        this.replanIntervalNanos = replanIntervalNanos;
+        this.tickBudgetNanos = tickBudgetNanos;
+    }
+
+    /// Updates the plan for the current position and goal.
+    ///
+    /// @return true if a new search was run this call
+    public boolean update(NavigationGraph graph, int start, int goal, long nowNanos) {
+        if (graph != this.graph) {
+            this.graph = graph;
+            this.path = new int[graph.nodeCount()];
+            this.pathLength = 0;
+            this.goal = -1;
+        }
+
+        boolean onPath = advanceTo(start);
+        boolean goalChanged = goal != this.goal;
+        long sinceLastPlan = nowNanos - lastPlanNanos;
+
+        if (pathLength > 0 && onPath && !goalChanged && complete) {
+            return false;
+        }
+        if (pathLength > 0 && sinceLastPlan < replanIntervalNanos
+                && (!goalChanged || lastSearchDurationNanos > tickBudgetNanos)) {
+            return false;
+        }
+
+        long searchStart = System.nanoTime();
+        long deadline = tickBudgetNanos == NO_BUDGET ? PathFinder.NO_DEADLINE : searchStart + tickBudgetNanos;
+        pathLength = pathFinder.findPath(graph, start, goal, path, deadline);
+        complete = pathFinder.isLastPathComplete();
+        lastSearchDurationNanos = System.nanoTime() - searchStart;
+        lastPlanNanos = nowNanos;
+        cursor = 0;
+        this.goal = goal;
+        version++;
+        return true;
+    }
+
+    /// Moves the cursor forward if `node` is on the remaining path.
+    private boolean advanceTo(int node) {
+        for (int i = cursor; i < pathLength; i++) {
+            if (path[i] == node) {
+                cursor = i;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /// Incremented every time a new path is computed.
+    public int getVersion() {
+        return version;
+    }
+
+    /// Copy of the remaining path, from the current node to the goal.
+    public int[] copyRemainingPath() {
+        return Arrays.copyOfRange(path, cursor, pathLength);
+    }
+}
@@ -0,0 +1,47 @@
+import dev.zwazel.internal.game.utils.Graph;
+import dev.zwazel.internal.game.utils.Node;
+
+import java.util.LinkedList;
+
+/// Result of one [BackgroundPlanner] run. Immutable once published, `path` must not be modified.
+///
+/// `(aimX, aimY, aimZ)` is the point to rotate the turret towards so the barrel has the planned pitch.
+///
+/// @param targetId the target this plan was made for, `-1` if none
+/// @param path     node ids from the planner's start to the target's node
+/// @param pitch    pitch to shoot at the target with, `NaN` if it can't be hit (out of reach or blocked)
+public record Plan(
+        long createdNanos,
+        long targetId,
+        int[] path,
+        float pitch,
+        float aimX,
+        float aimY,
+        float aimZ
+) {
+    public static final Plan EMPTY = new Plan(0, -1, new int[0], Float.NaN, 0, 0, 0);
+
+    public boolean canShoot() {
+        return !Float.isNaN(pitch);
+    }
+
+    /// The node after `currentNode` on the path, or `-1` if `currentNode` is not on it or is the last node.
+    public int nextWaypoint(int currentNode) {
+        for (int i = 0; i < path.length - 1; i++) {
+            if (path[i] == currentNode) {
+                return path[i + 1];
+            }
+        }
+        return -1;
+    }
+
+    /// Converts the path into library nodes, e.g. for the [dev.zwazel.internal.debug.MapVisualiser].
+    /// This allocates, so only use it for debugging.
+    public LinkedList<Node> toNodePath(NavigationGraph graph, Graph visualGraph) {
+        LinkedList<Node> nodes = new LinkedList<>();
+        for (int node : path) {
+            nodes.add(visualGraph.getNode(graph.nodeX(node), graph.nodeZ(node)));
+        }
+        return nodes;
+    }
+}
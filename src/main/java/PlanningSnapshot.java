@@ -0,0 +1,33 @@
+/// Immutable copy of everything the [BackgroundPlanner] needs from one tick.
+/// Taken on the tick thread, so it must only hold immutable or shared read-only data.
+///
+/// @param turretMinPitch lowest pitch the turret can take (server convention, negative is upwards)
+/// @param turretMaxPitch highest pitch the turret can take
+/// @param myY        height of the muzzle, half the tank's height above its body translation
+/// @param targetId   client id of the tank to plan against, or `-1` if there is none
+/// @param targetNode navigation node the target stands on
+/// @param targetY    height of the point to hit (the center of the target tank)
+/// @param targetVX   estimated target velocity, used to lead the shot
+public record PlanningSnapshot(
+        long createdNanos,
+        NavigationGraph graph,
+        BallisticSolver solver,
+        float turretMinPitch,
+        float turretMaxPitch,
+        int myNode,
+        float myX,
+        float myY,
+        float myZ,
+        long targetId,
+        int targetNode,
+        float targetX,
+        float targetY,
+        float targetZ,
+        float targetVX,
+        float targetVY,
+        float targetVZ
+) {
+    public boolean hasTarget() {
+        return targetId >= 0;
+    }
+}
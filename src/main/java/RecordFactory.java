@@ -0,0 +1,186 @@
+import java.io.Serializable;
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/// Creates instances of the interface library's records without depending on the order of their components.
+///
+/// The simulator and the benchmark fixtures only know the handful of components they care about. They name them
+/// through the record's accessors, e.g. `set(TankConfig::projectileSpeed, 30f)`, so the compiler checks that the
+/// component exists and that the value has its type ([Builder#setNumber] converts between number types). Every component that is not set gets a neutral default:
+/// `0`, `false`, `null`, or an empty collection / [Optional].
+///
+/// The canonical constructor and the component names are looked up once per record type. A [Builder] can be
+/// reused: it keeps its values between [Builder#build()] calls, so per-tick records only need the changed
+/// components to be set again.
+///
+/// [OfflineProxies] does the same for the library's interfaces.
+public final class RecordFactory {
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return new Shape(type);
+        }
+    };
+    private static final ConcurrentHashMap<Class<?>, Method> ACCESSORS = new ConcurrentHashMap<>();
+
+    private RecordFactory() {
+    }
+
+    public static <R extends Record> Builder<R> builder(Class<R> type) {
+        return new Builder<>(type);
+    }
+
+    /// The constant `name` of the enum type of the given component, e.g. `enumConstant(Hit::hitSide, "FRONT")`.
+    /// Useful when the enum type itself isn't known by name.
+    ///
+    /// @throws IllegalArgumentException if the component is not an enum or has no such constant
+    public static <R extends Record, V> Object enumConstant(Component<R, V> component, String name) {
+        Class<?> type = accessor(component).getReturnType();
+        if (!type.isEnum()) {
+            throw new IllegalArgumentException(type.getSimpleName() + " is not an enum");
+        }
+        for (Object constant : type.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException(type.getSimpleName() + " has no constant " + name);
+    }
+
+    /// The accessor method behind a method reference like `TankConfig::moveSpeed`.
+    private static Method accessor(Component<?, ?> component) {
+        return ACCESSORS.computeIfAbsent(component.getClass(), lambdaClass -> {
+            try {
+                Method writeReplace = lambdaClass.getDeclaredMethod("writeReplace");
+                writeReplace.setAccessible(true);
+                SerializedLambda lambda = (SerializedLambda) writeReplace.invoke(component);
+                Class<?> owner = Class.forName(lambda.getImplClass().replace('/', '.'), false,
+                        lambdaClass.getClassLoader());
+                Method method = owner.getMethod(lambda.getImplMethodName());
+                if (!owner.isRecord() || SHAPES.get(owner).indexOf(method.getName()) < 0) {
+                    throw new IllegalArgumentException(lambda.getImplMethodName() + " is not a record component accessor");
+                }
+                return method;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Components must be given as accessor method references", e);
+            }
+        });
+    }
+
+    private static Object convert(Class<?> type, Number number) {
+        if (type == int.class || type == Integer.class) return number.intValue();
+        if (type == long.class || type == Long.class) return number.longValue();
+        if (type == float.class || type == Float.class) return number.floatValue();
+        if (type == double.class || type == Double.class) return number.doubleValue();
+        if (type == short.class || type == Short.class) return number.shortValue();
+        if (type == byte.class || type == Byte.class) return number.byteValue();
+        return number;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == Optional.class) return Optional.empty();
+        if (type == Map.class) return Map.of();
+        if (type == Set.class) return Set.of();
+        if (type == List.class || type == Collection.class) return List.of();
+        return null;
+    }
+
+    /// A record component, named by its accessor, e.g. `TankConfig::moveSpeed`.
+    @FunctionalInterface
+    public interface Component<R extends Record, V> extends Function<R, V>, Serializable {
+    }
+
+    public static final class Builder<R extends Record> {
+        private final Class<R> type;
+        private final Shape shape;
+        private final Object[] values;
+
+        private Builder(Class<R> type) {
+            this.type = type;
+            this.shape = SHAPES.get(type);
+            this.values = shape.defaults.clone();
+        }
+
+        public <V> Builder<R> set(Component<R, V> component, V value) {
+            values[index(component)] = value;
+            return this;
+        }
+
+        /// Sets a numeric component, converted to the component's own number type.
+        public Builder<R> setNumber(Component<R, ? extends Number> component, Number value) {
+            int index = index(component);
+            values[index] = convert(shape.types[index], value);
+            return this;
+        }
+
+        /// Like [#set(Component, Object)], for values whose type is only known at runtime (e.g. from
+        /// [RecordFactory#enumConstant(Component, String)]). The type is checked when the record is built.
+        public Builder<R> setUnchecked(Component<R, ?> component, Object value) {
+            values[index(component)] = value;
+            return this;
+        }
+
+        private int index(Component<R, ?> component) {
+            Method accessor = accessor(component);
+            if (accessor.getDeclaringClass() != type) {
+                throw new IllegalArgumentException(accessor + " is not a component of " + type.getSimpleName());
+            }
+            return shape.indexOf(accessor.getName());
+        }
+
+        public R build() {
+            try {
+                return type.cast(shape.constructor.newInstance(values.clone()));
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw new IllegalStateException("Could not create " + type.getSimpleName(), e);
+            }
+        }
+    }
+
+    /// Canonical constructor, component names and defaults of one record type.
+    private static final class Shape {
+        private final Constructor<?> constructor;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final Class<?>[] types;
+        private final Object[] defaults;
+
+        private Shape(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            types = new Class<?>[components.length];
+            defaults = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                defaults[i] = defaultValue(components[i].getType());
+                indices.put(components[i].getName(), i);
+            }
+            try {
+                constructor = type.getDeclaredConstructor(types);
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(type.getSimpleName() + " has no canonical constructor", e);
+            }
+        }
+
+        private int indexOf(String component) {
+            return indices.getOrDefault(component, -1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/// Summarizes replays written by [ReplayRecorder]: hit rate, damage and tick timings over any number of matches.
+///
+/// Run with the replay files or directories to scan (default `replays`). Files are scanned in parallel, each on its
+/// own virtual thread: scanning mostly waits for the disk, which would only block the common fork-join pool.
+public final class ReplayAnalyzer {
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder shots = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder timesHit = new LongAdder();
+    private final DoubleAdder damageDealt = new DoubleAdder();
+    private final DoubleAdder damageReceived = new DoubleAdder();
+    private final LatencyHistogram tickDurations = new LatencyHistogram();
+
+    public void scan(Path file) throws IOException {
+        try (ReplayReader reader = ReplayReader.open(file)) {
+            while (reader.next()) {
+                ticks.increment();
+                tickDurations.record(reader.tickDurationNanos());
+                if (reader.shot()) {
+                    shots.increment();
+                }
+                for (int i = 0, count = reader.messageCount(); i < count; i++) {
+                    if (reader.direction(i) != ReplayRecorder.INCOMING) {
+                        continue;
+                    }
+                    switch (reader.kind(i)) {
+                        case ReplayRecorder.KIND_HIT -> {
+                            hits.increment();
+                            damageDealt.add(reader.damage(i));
+                        }
+                        case ReplayRecorder.KIND_GOT_HIT -> {
+                            timesHit.increment();
+                            damageReceived.add(reader.damage(i));
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            }
+        }
+        replays.increment();
+    }
+
+    public void print() {
+        long shotCount = shots.sum();
+        System.out.printf("%d replays, %d ticks%n", replays.sum(), ticks.sum());
+        System.out.printf("Shots: %d, hits: %d, hit rate: %.1f%%%n",
+                shotCount, hits.sum(), shotCount == 0 ? 0 : 100.0 * hits.sum() / shotCount);
+        System.out.printf("Damage dealt: %.0f, received: %.0f (hit %d times)%n",
+                damageDealt.sum(), damageReceived.sum(), timesHit.sum());
+        System.out.printf("Tick duration: p50 %dus, p99 %dus, p99.9 %dus, max %dus%n",
+                tickDurations.percentile(50) / 1_000, tickDurations.percentile(99) / 1_000,
+                tickDurations.percentile(99.9) / 1_000, tickDurations.max() / 1_000);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args.length == 0 ? new String[]{"replays"} : args) {
+            try (Stream<Path> paths = Files.walk(Path.of(arg))) {
+                paths.filter(path -> path.toString().endsWith(".replay")).forEach(files::add);
+            }
+        }
+
+        ReplayAnalyzer analyzer = new ReplayAnalyzer();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> scans = new ArrayList<>(files.size());
+            for (Path file : files) {
+                scans.add(executor.submit(() -> {
+                    analyzer.scan(file);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < scans.size(); i++) {
+                try {
+                    scans.get(i).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException io
+                            ? new UncheckedIOException("Could not read " + files.get(i), io)
+                            : new IllegalStateException("Could not read " + files.get(i), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Scan was interrupted", e);
+                }
+            }
+        }
+        analyzer.print();
+        System.out.printf("Scanned in %.1fs%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Streams the ticks of a replay file written by [ReplayRecorder], one block at a time.
+///
+/// The file is read in large chunks into a direct buffer; accessors read the columns of the current block straight
+/// out of that buffer, so scanning a replay allocates nothing besides the [#text(int)] strings that are asked for.
+/// The accessors are only valid until the next [#next()].
+///
+/// ```java
+/// try (ReplayReader reader = ReplayReader.open(file)) {
+///     while (reader.next()) {
+///         long tick = reader.tick();
+///         ...
+///     }
+/// }
+///```
+public final class ReplayReader implements AutoCloseable {
+    private static final int READ_BUFFER_SIZE = 4 << 20;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    // Offsets of the current block's columns in the buffer
+    private int blockStart;
+    private int clientCount;
+    private int clientsStart;
+    private int messageCount;
+    private int messagesStart;
+    private int[] textOffsets = new int[16];
+
+    private ReplayReader(FileChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    public static ReplayReader open(Path file) throws IOException {
+        ReplayReader reader = new ReplayReader(FileChannel.open(file, StandardOpenOption.READ));
+        try {
+            if (!reader.fill(2 * Integer.BYTES)
+                    || reader.buffer.getInt() != ReplayRecorder.MAGIC
+                    || reader.buffer.getInt() != ReplayRecorder.FORMAT_VERSION) {
+                throw new IOException(file + " is not a replay file of version " + ReplayRecorder.FORMAT_VERSION);
+            }
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    /// Moves to the next tick.
+    ///
+    /// @return false at the end of the file (a block cut off by a crash counts as the end)
+    public boolean next() throws IOException {
+        if (!fill(Integer.BYTES)) {
+            return false;
+        }
+        int length = buffer.getInt();
+        if (!fill(length)) {
+            return false;
+        }
+
+        blockStart = buffer.position();
+        clientCount = buffer.getInt(blockStart + 17);
+        clientsStart = blockStart + 21;
+        int messageCountOffset = clientsStart + clientCount * (Long.BYTES + 1 + 4 * Float.BYTES);
+        messageCount = buffer.getInt(messageCountOffset);
+        messagesStart = messageCountOffset + Integer.BYTES;
+
+        if (textOffsets.length < messageCount) {
+            textOffsets = new int[Math.max(messageCount, textOffsets.length * 2)];
+        }
+        int textOffset = messagesStart + messageCount * (1 + 1 + Long.BYTES + 1 + Float.BYTES);
+        for (int i = 0; i < messageCount; i++) {
+            textOffsets[i] = textOffset;
+            textOffset += Integer.BYTES + buffer.getInt(textOffset);
+        }
+
+        buffer.position(blockStart + length);
+        return true;
+    }
+
+    /// Makes sure at least `bytes` unread bytes are in the buffer, reading more of the file if needed.
+    ///
+    /// @return false if the file ends before that
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(bytes, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer);
+            larger.flip();
+            buffer = larger;
+        }
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    public long tick() {
+        return buffer.getLong(blockStart);
+    }
+
+    public long tickDurationNanos() {
+        return buffer.getLong(blockStart + 8);
+    }
+
+    /// Whether the bot fired during this tick.
+    public boolean shot() {
+        return (buffer.get(blockStart + 16) & ReplayRecorder.FLAG_SHOT) != 0;
+    }
+
+    public int clientCount() {
+        return clientCount;
+    }
+
+    public long clientId(int client) {
+        return buffer.getLong(clientsStart + client * Long.BYTES);
+    }
+
+    /// Ordinal of the client's `ClientState.PlayerState`, `-1` if unknown.
+    public int state(int client) {
+        return buffer.get(clientsStart + clientCount * Long.BYTES + client);
+    }
+
+    public float x(int client) {
+        return clientFloat(0, client);
+    }
+
+    public float y(int client) {
+        return clientFloat(1, client);
+    }
+
+    public float z(int client) {
+        return clientFloat(2, client);
+    }
+
+    public float health(int client) {
+        return clientFloat(3, client);
+    }
+
+    private float clientFloat(int column, int client) {
+        int floatsStart = clientsStart + clientCount * (Long.BYTES + 1);
+        return buffer.getFloat(floatsStart + (column * clientCount + client) * Float.BYTES);
+    }
+
+    public int messageCount() {
+        return messageCount;
+    }
+
+    /// [ReplayRecorder#INCOMING] or [ReplayRecorder#OUTGOING].
+    public byte direction(int message) {
+        return buffer.get(messagesStart + message);
+    }
+
+    /// One of the `ReplayRecorder.KIND_*` constants.
+    public byte kind(int message) {
+        return buffer.get(messagesStart + messageCount + message);
+    }
+
+    /// For hits the target, for getting hit the shooter, otherwise `-1`.
+    public long entity(int message) {
+        return buffer.getLong(messagesStart + 2 * messageCount + message * Long.BYTES);
+    }
+
+    /// Ordinal of the hit side, `-1` if the message is not about a hit.
+    public int side(int message) {
+        return buffer.get(messagesStart + messageCount * (2 + Long.BYTES) + message);
+    }
+
+    public float damage(int message) {
+        return buffer.getFloat(messagesStart + messageCount * (3 + Long.BYTES) + message * Float.BYTES);
+    }
+
+    /// The message text. Allocates a string, unlike the other accessors.
+    public String text(int message) {
+        int offset = textOffsets[message];
+        byte[] utf8 = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,435 @@
+import dev.zwazel.PropertyHandler;
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.connection.client.ConnectedClientConfig;
+import dev.zwazel.internal.game.state.ClientState;
+import dev.zwazel.internal.game.transform.Vec3;
+import dev.zwazel.internal.message.MessageContainer;
+import dev.zwazel.internal.message.MessageData;
+import dev.zwazel.internal.message.data.SimpleTextMessage;
+import dev.zwazel.internal.message.data.tank.GotHit;
+import dev.zwazel.internal.message.data.tank.Hit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/// Records every tick of a match into a compact binary replay file, for analysis after the match
+/// (see [ReplayReader] and [ReplayAnalyzer]).
+///
+/// During a tick, states and messages are collected into reusable arrays. [#endTick(long)] then writes the whole
+/// tick as one block into a preallocated direct (off-heap) buffer. Full buffers are handed to a writer thread; the
+/// tick thread never waits for I/O. If the writer falls so far behind that no free buffer is left, the tick is
+/// dropped and counted instead.
+///
+/// File format, little endian: the header `int magic, int version`, then one block per tick:
+/// ```
+/// int    blockLength        bytes after this field
+/// long   tick
+/// long   tickDurationNanos
+/// byte   flags              FLAG_SHOT: the bot fired this tick
+/// int    clientCount
+/// long   clientId[clientCount]
+/// byte   state[clientCount]          ClientState.PlayerState ordinal
+/// float  x[clientCount], y[clientCount], z[clientCount], health[clientCount]
+/// int    messageCount
+/// byte   direction[messageCount]     INCOMING / OUTGOING
+/// byte   kind[messageCount]          KIND_*
+/// long   entity[messageCount]        hit: the target, got hit: the shooter, otherwise -1
+/// byte   side[messageCount]          hit side ordinal, -1 if not a hit
+/// float  damage[messageCount]
+/// then per message: int byteCount, byte text[byteCount]  UTF-8. Text messages: the text, other kinds: empty,
+///                                                         unknown types: their toString()
+/// ```
+/// Configured in `app.properties`: `replay.enabled` and `replay.directory`.
+public final class ReplayRecorder implements AutoCloseable {
+    public static final int MAGIC = 0x5452504C; // "TRPL"
+    public static final int FORMAT_VERSION = 2;
+    public static final byte INCOMING = 0;
+    public static final byte OUTGOING = 1;
+    public static final byte KIND_OTHER = 0;
+    public static final byte KIND_TEXT = 1;
+    public static final byte KIND_HIT = 2;
+    public static final byte KIND_GOT_HIT = 3;
+    public static final byte FLAG_SHOT = 1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFER_COUNT = 4;
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+    /// Files of the same bot started in the same second get `-1`, `-2`, ... appended
+    private static final int MAX_FILE_ATTEMPTS = 100;
+
+    private final boolean enabled;
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final BlockingQueue<ByteBuffer> fullBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final FileChannel channel;
+    private final Thread writer;
+    private Thread shutdownHook;
+    private ByteBuffer current;
+    private long droppedTicks;
+    private boolean closed;
+
+    // Collected during the current tick
+    private long tick;
+    private byte flags;
+    private int clientCount;
+    private long[] clientIds = new long[8];
+    private byte[] states = new byte[8];
+    private float[] x = new float[8];
+    private float[] y = new float[8];
+    private float[] z = new float[8];
+    private float[] health = new float[8];
+    private int messageCount;
+    private byte[] directions = new byte[16];
+    private MessageData[] messages = new MessageData[16];
+    /// Computed once in [#addMessage], `String.valueOf` of an unknown message is not free
+    private CharSequence[] texts = new CharSequence[16];
+    private int[] textBytes = new int[16];
+
+    private ReplayRecorder(boolean enabled, FileChannel channel, String botName) {
+        this.enabled = enabled;
+        this.channel = channel;
+        if (!enabled) {
+            this.writer = null;
+            return;
+        }
+
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        current = freeBuffers.poll();
+        current.putInt(MAGIC).putInt(FORMAT_VERSION);
+        this.writer = Thread.ofPlatform().daemon().name("replay-writer-" + botName).start(this::writeLoop);
+    }
+
+    /// A recorder that does nothing, every call returns immediately.
+    public static ReplayRecorder disabled() {
+        return new ReplayRecorder(false, null, null);
+    }
+
+    /// Creates a recorder from the `replay.*` properties, writing to `<replay.directory>/<botName>-<time>.replay`,
+    /// or `<botName>-<time>-<n>.replay` if that file already exists (e.g. two matches started in the same second).
+    /// Falls back to a disabled recorder if recording is off or the file can't be created.
+    public static ReplayRecorder fromProperties(PropertyHandler properties, String botName) {
+        if (!Boolean.parseBoolean(properties.getProperty("replay.enabled"))) {
+            return disabled();
+        }
+        Path directory = Path.of(Optional.ofNullable(properties.getProperty("replay.directory")).orElse("replays"));
+        String name = botName + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve(name + ".replay");
+        try {
+            Files.createDirectories(directory);
+            FileChannel channel = null;
+            for (int attempt = 1; channel == null; attempt++) {
+                try {
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                } catch (FileAlreadyExistsException e) {
+                    if (attempt == MAX_FILE_ATTEMPTS) {
+                        throw e;
+                    }
+                    file = directory.resolve(name + "-" + attempt + ".replay");
+                }
+            }
+            ReplayRecorder recorder = new ReplayRecorder(true, channel, botName);
+            // There might be no end of match callback, flush whatever is left when the process ends.
+            // Removed again by close()
+            recorder.shutdownHook = new Thread(recorder::close, "replay-close-" + botName);
+            Runtime.getRuntime().addShutdownHook(recorder.shutdownHook);
+            return recorder;
+        } catch (IOException e) {
+            System.err.println("Could not create replay file " + file + ", not recording: " + e.getMessage());
+            return disabled();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /// Ticks that were not recorded because the writer couldn't keep up.
+    public synchronized long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    public void beginTick(long tick) {
+        if (!enabled) {
+            return;
+        }
+        this.tick = tick;
+        flags = 0;
+        clientCount = 0;
+        messageCount = 0;
+    }
+
+    /// Records the current state of all given clients.
+    public void recordStates(PublicGameWorld world, List<ConnectedClientConfig> clients) {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0, count = clients.size(); i < count; i++) {
+            long id = clients.get(i).clientId();
+            ClientState state = world.getClientState(id);
+            if (state == null) {
+                continue;
+            }
+            if (clientCount == clientIds.length) {
+                int capacity = clientCount * 2;
+                clientIds = Arrays.copyOf(clientIds, capacity);
+                states = Arrays.copyOf(states, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                z = Arrays.copyOf(z, capacity);
+                health = Arrays.copyOf(health, capacity);
+            }
+            Vec3 position = state.transformBody() == null ? null : state.transformBody().getTranslation();
+            clientIds[clientCount] = id;
+            states[clientCount] = (byte) (state.state() == null ? -1 : state.state().ordinal());
+            x[clientCount] = position == null ? Float.NaN : (float) position.getX();
+            y[clientCount] = position == null ? Float.NaN : (float) position.getY();
+            z[clientCount] = position == null ? Float.NaN : (float) position.getZ();
+            health[clientCount] = state.currentHealth();
+            clientCount++;
+        }
+    }
+
+    public void recordIncoming(List<MessageContainer> incoming) {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0, count = incoming.size(); i < count; i++) {
+            addMessage(INCOMING, incoming.get(i).getMessage());
+        }
+    }
+
+    public void recordOutgoing(MessageContainer outgoing) {
+        if (enabled) {
+            addMessage(OUTGOING, outgoing.getMessage());
+        }
+    }
+
+    public void recordShot() {
+        flags |= FLAG_SHOT;
+    }
+
+    private void addMessage(byte direction, MessageData data) {
+        if (messageCount == messages.length) {
+            directions = Arrays.copyOf(directions, messageCount * 2);
+            messages = Arrays.copyOf(messages, messageCount * 2);
+            texts = Arrays.copyOf(texts, messageCount * 2);
+            textBytes = Arrays.copyOf(textBytes, messageCount * 2);
+        }
+        directions[messageCount] = direction;
+        messages[messageCount] = data;
+        texts[messageCount] = text(data);
+        textBytes[messageCount] = utf8Length(texts[messageCount]);
+        messageCount++;
+    }
+
+    /// Writes the tick's block. Never blocks: if no buffer is free, the tick is dropped.
+    public void endTick(long tickDurationNanos) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            int length = blockLength();
+            if (current.remaining() < Integer.BYTES + length) {
+                ByteBuffer next = length + Integer.BYTES <= BUFFER_SIZE ? freeBuffers.poll() : null;
+                if (next == null) {
+                    droppedTicks++;
+                    Arrays.fill(messages, 0, messageCount, null);
+                    Arrays.fill(texts, 0, messageCount, null);
+                    return;
+                }
+                fullBuffers.add(current);
+                current = next;
+            }
+            writeBlock(current, length, tickDurationNanos);
+        }
+        Arrays.fill(messages, 0, messageCount, null);
+        Arrays.fill(texts, 0, messageCount, null);
+    }
+
+    private int blockLength() {
+        int length = Long.BYTES + Long.BYTES + 1 + Integer.BYTES
+                + clientCount * (Long.BYTES + 1 + 4 * Float.BYTES)
+                + Integer.BYTES
+                + messageCount * (1 + 1 + Long.BYTES + 1 + Float.BYTES + Integer.BYTES);
+        for (int i = 0; i < messageCount; i++) {
+            length += textBytes[i];
+        }
+        return length;
+    }
+
+    private void writeBlock(ByteBuffer buffer, int length, long tickDurationNanos) {
+        buffer.putInt(length).putLong(tick).putLong(tickDurationNanos).put(flags).putInt(clientCount);
+        for (int i = 0; i < clientCount; i++) buffer.putLong(clientIds[i]);
+        for (int i = 0; i < clientCount; i++) buffer.put(states[i]);
+        for (int i = 0; i < clientCount; i++) buffer.putFloat(x[i]);
+        for (int i = 0; i < clientCount; i++) buffer.putFloat(y[i]);
+        for (int i = 0; i < clientCount; i++) buffer.putFloat(z[i]);
+        for (int i = 0; i < clientCount; i++) buffer.putFloat(health[i]);
+
+        buffer.putInt(messageCount);
+        for (int i = 0; i < messageCount; i++) buffer.put(directions[i]);
+        for (int i = 0; i < messageCount; i++) buffer.put(kind(messages[i]));
+        for (int i = 0; i < messageCount; i++) {
+            buffer.putLong(switch (messages[i]) {
+                case Hit hit -> hit.hitEntity();
+                case GotHit gotHit -> gotHit.shooterEntity();
+                default -> -1L;
+            });
+        }
+        for (int i = 0; i < messageCount; i++) {
+            Object side = switch (messages[i]) {
+                case Hit hit -> hit.hitSide();
+                case GotHit gotHit -> gotHit.hitSide();
+                default -> null;
+            };
+            buffer.put((byte) (side instanceof Enum<?> value ? value.ordinal() : -1));
+        }
+        for (int i = 0; i < messageCount; i++) {
+            buffer.putFloat(switch (messages[i]) {
+                case Hit hit -> hit.damageDealt();
+                case GotHit gotHit -> gotHit.damageReceived();
+                default -> 0f;
+            });
+        }
+        for (int i = 0; i < messageCount; i++) {
+            buffer.putInt(textBytes[i]);
+            putUtf8(buffer, texts[i]);
+        }
+    }
+
+    /// Bytes of `text` in UTF-8, without encoding it. Unpaired surrogates count as the one byte `?` they become.
+    private static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /// Encodes `text` as UTF-8 straight into the buffer, see [#utf8Length(CharSequence)].
+    private static void putUtf8(ByteBuffer buffer, CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18))
+                        .put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F))
+                        .put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12))
+                        .put((byte) (0x80 | c >> 6 & 0x3F))
+                        .put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static byte kind(MessageData data) {
+        return switch (data) {
+            case Hit hit -> KIND_HIT;
+            case GotHit gotHit -> KIND_GOT_HIT;
+            case SimpleTextMessage text -> KIND_TEXT;
+            default -> KIND_OTHER;
+        };
+    }
+
+    private static CharSequence text(MessageData data) {
+        return switch (data) {
+            case Hit hit -> "";
+            case GotHit gotHit -> "";
+            case SimpleTextMessage text -> text.message();
+            default -> String.valueOf(data);
+        };
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer buffer;
+            try {
+                buffer = fullBuffers.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (buffer == END_OF_STREAM) {
+                return;
+            }
+
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not write replay: " + e.getMessage());
+            }
+            buffer.clear();
+            freeBuffers.add(buffer);
+        }
+    }
+
+    /// Writes the remaining buffered ticks and closes the file.
+    @Override
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            fullBuffers.add(current);
+            fullBuffers.add(END_OF_STREAM);
+        }
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The process is already shutting down, the hook is running or about to
+            }
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Could not close replay: " + e.getMessage());
+        }
+    }
+}
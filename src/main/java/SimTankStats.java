@@ -0,0 +1,40 @@
+/// Tank values the [SimulatedMatch] needs, independent of how the interface library's `TankConfig` names them.
+/// Rotation speeds are in radians per second, pitch follows the server convention (negative is upwards).
+///
+/// @param armorFront fraction of the damage the front side absorbs, `0..1`
+public record SimTankStats(
+        float moveSpeed,
+        float bodyRotationSpeed,
+        float turretYawRotationSpeed,
+        float turretPitchRotationSpeed,
+        float turretMinPitch,
+        float turretMaxPitch,
+        int shootCooldownTicks,
+        float projectileSpeed,
+        float projectileGravity,
+        float projectileDamage,
+        int projectileLifetimeTicks,
+        float maxHealth,
+        float sizeX,
+        float sizeY,
+        float sizeZ,
+        float armorFront,
+        float armorBack,
+        float armorLeft,
+        float armorRight
+) {
+    /// Values close to the server's light tank.
+    public static SimTankStats lightTank() {
+        return new SimTankStats(3, 1.5f, 2, 1, -1.2f, 0.3f, 60, 30, 18, 25, 600, 100,
+                1, 1, 1, 0.5f, 0.1f, 0.25f, 0.25f);
+    }
+
+    public float armor(SimulatedMatch.Side side) {
+        return switch (side) {
+            case FRONT -> armorFront;
+            case BACK -> armorBack;
+            case LEFT -> armorLeft;
+            case RIGHT -> armorRight;
+        };
+    }
+}
@@ -0,0 +1,521 @@
+import dev.zwazel.bot.BotInterface;
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.connection.client.ConnectedClientConfig;
+import dev.zwazel.internal.game.lobby.TeamConfig;
+import dev.zwazel.internal.game.map.MapDefinition;
+import dev.zwazel.internal.game.state.ClientState;
+import dev.zwazel.internal.game.tank.Tank;
+import dev.zwazel.internal.game.tank.TankConfig;
+import dev.zwazel.internal.game.transform.Transform;
+import dev.zwazel.internal.game.transform.Vec3;
+import dev.zwazel.internal.message.MessageContainer;
+import dev.zwazel.internal.message.data.GameConfig;
+import dev.zwazel.internal.message.data.tank.GotHit;
+import dev.zwazel.internal.message.data.tank.Hit;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static dev.zwazel.internal.message.MessageTarget.Type.CLIENT;
+
+/// Headless, deterministic stand-in for the server: plays one match between two teams of bots without any network.
+///
+/// Every tick, each bot's [BotInterface#processTick(PublicGameWorld)] is called with its own [PublicGameWorld],
+/// in a fixed order. The bots' tank commands are collected and applied afterwards, like the server applies
+/// them at the end of a tick:
+/// - moving and turning the body at the tank's move / rotation speed
+/// - turning the turret towards its target at the turret rotation speeds, within the pitch limits
+/// - shooting, limited by the cooldown
+///
+/// Shells follow the server's integration (`velocity.y -= gravity * dt; translation += velocity * dt`), stop at
+/// terrain, and deal `projectileDamage * (1 - armor)` for the side they hit (see [MyBot]'s `handleHittingTank`).
+/// There is no friendly fire: shells fly through tanks of the shooter's own team.
+/// Both sides get a [Hit] / [GotHit] message on the next tick. A tank at zero health is
+/// [ClientState.PlayerState#DEAD]. The match ends when a team has no living tank left, or after `maxTicks`.
+///
+/// The same [SimulationConfig] (including its seed) always plays out the same way, as long as the bots
+/// themselves are deterministic (for [MyBot]: [BotSettings#asyncPlanning()] off).
+/// Tanks stand on the height of the tile they are on, mapped from world positions like the bot does
+/// ([NavigationGraph#tileX(double)]); the map's edges are the outer edges of its border tiles.
+public final class SimulatedMatch {
+    public static final String[] TEAMS = {"Red", "Blue"};
+
+    private final SimulationConfig config;
+    private final SimTankStats stats;
+    private final float dt;
+    private final int width;
+    private final int depth;
+    private final float[][] heights;
+    private final MapDefinition mapDefinition;
+    private final NavigationGraph tiles;
+    private final TankConfig tankConfig;
+    private final Map<String, TeamConfig> teamConfigs = new HashMap<>();
+    private final List<ConnectedClientConfig> clients = new ArrayList<>();
+    private final List<SimTank> tanks = new ArrayList<>();
+    private final Map<Long, SimTank> tanksById = new HashMap<>();
+    private final List<Shell> shells = new ArrayList<>();
+    private final Object[] hitSides;
+    private final RecordFactory.Builder<Hit> hitBuilder = RecordFactory.builder(Hit.class);
+    private final RecordFactory.Builder<GotHit> gotHitBuilder = RecordFactory.builder(GotHit.class);
+    private int tick;
+
+    public SimulatedMatch(SimulationConfig config, BotFactory teamA, BotFactory teamB) {
+        this.config = config;
+        this.stats = config.tank();
+        this.dt = 1f / config.tickRate();
+        this.width = config.width();
+        this.depth = config.depth();
+        this.heights = config.heights();
+
+        this.mapDefinition = RecordFactory.builder(MapDefinition.class)
+                .setNumber(MapDefinition::width, width)
+                .setNumber(MapDefinition::depth, depth)
+                .set(MapDefinition::tiles, heights)
+                .build();
+        this.tiles = NavigationGraph.of(mapDefinition, false);
+
+        // The side enum of the library, in the order of Side. Fails here if the library names its sides differently
+        this.hitSides = new Object[Side.values().length];
+        Map<Object, Float> armor = new HashMap<>();
+        for (Side side : Side.values()) {
+            hitSides[side.ordinal()] = RecordFactory.enumConstant(Hit::hitSide, side.name());
+            armor.put(hitSides[side.ordinal()], stats.armor(side));
+        }
+
+        // Only what the bot reads, the simulation itself runs on the SimTankStats
+        this.tankConfig = RecordFactory.builder(TankConfig.class)
+                .setNumber(TankConfig::bodyRotationSpeed, stats.bodyRotationSpeed())
+                .setNumber(TankConfig::turretMinPitch, stats.turretMinPitch())
+                .setNumber(TankConfig::turretMaxPitch, stats.turretMaxPitch())
+                .setNumber(TankConfig::projectileSpeed, stats.projectileSpeed())
+                .setNumber(TankConfig::projectileGravity, stats.projectileGravity())
+                .setNumber(TankConfig::projectileDamage, stats.projectileDamage())
+                .set(TankConfig::size, new Vec3(stats.sizeX(), stats.sizeY(), stats.sizeZ()))
+                .setUnchecked(TankConfig::armor, armor)
+                .build();
+
+        Random random = new Random(config.seed());
+        long clientId = 1;
+        for (int team = 0; team < TEAMS.length; team++) {
+            teamConfigs.put(TEAMS[team], RecordFactory.builder(TeamConfig.class).set(TeamConfig::teamName, TEAMS[team]).build());
+            for (int i = 0; i < config.playersPerTeam(); i++) {
+                String name = TEAMS[team] + "_" + i;
+                ConnectedClientConfig client = RecordFactory.builder(ConnectedClientConfig.class)
+                        .setNumber(ConnectedClientConfig::clientId, clientId)
+                        .set(ConnectedClientConfig::clientName, name)
+                        .set(ConnectedClientConfig::clientTeamName, TEAMS[team])
+                        .set(ConnectedClientConfig::clientTankType, "LightTank")
+                        .build();
+                clients.add(client);
+
+                // Teams spawn on opposite edges of the map
+                float x = tiles.tileCenter(team == 0 ? 1 : width - 2);
+                float z = tiles.tileCenter(random.nextInt(Math.max(1, depth)));
+                BotFactory factory = team == 0 ? teamA : teamB;
+                SimTank tank = new SimTank(clientId, team, factory.create(new BotProfile(name, TEAMS[team], Optional.empty())));
+                tank.x = x;
+                tank.z = z;
+                tank.y = groundHeight(x, z);
+                tank.bodyYaw = team == 0 ? 0 : (float) Math.PI;
+                tank.turretYaw = tank.bodyYaw;
+                tank.health = stats.maxHealth();
+                tanks.add(tank);
+                tanksById.put(clientId, tank);
+                clientId++;
+            }
+        }
+
+        for (SimTank tank : tanks) {
+            // Tank configs are answered by the world's getTankConfig
+            tank.gameConfig = RecordFactory.builder(GameConfig.class)
+                    .setNumber(GameConfig::clientId, tank.id)
+                    .setNumber(GameConfig::tickRate, config.tickRate())
+                    .set(GameConfig::mapDefinition, mapDefinition)
+                    .set(GameConfig::teamConfigs, teamConfigs)
+                    .set(GameConfig::connectedClientConfigs, clients)
+                    .build();
+            tank.stateBuilder = RecordFactory.builder(ClientState.class).setNumber(ClientState::id, tank.id);
+            tank.world = OfflineProxies.create(PublicGameWorld.class, "Simulated", tank::handleWorld);
+            tank.tankProxy = OfflineProxies.create(Tank.class, "Simulated", tank::handleTank);
+        }
+    }
+
+    /// Plays the match to the end.
+    public MatchResult run() {
+        refreshStates();
+        for (SimTank tank : tanks) {
+            tank.bot.setup(tank.world);
+        }
+
+        while (tick < config.maxTicks() && aliveCount(0) > 0 && aliveCount(1) > 0) {
+            tick++;
+            refreshStates();
+            for (SimTank tank : tanks) {
+                List<MessageContainer> delivered = tank.inbox;
+                tank.inbox = tank.nextInbox;
+                tank.nextInbox = delivered;
+                tank.nextInbox.clear();
+            }
+
+            for (SimTank tank : tanks) {
+                tank.bot.processTick(tank.world);
+            }
+            for (SimTank tank : tanks) {
+                if (tank.alive) {
+                    tank.applyCommands();
+                }
+                tank.clearCommands();
+            }
+            stepShells();
+        }
+
+        // The bots only live for this match
+        for (SimTank tank : tanks) {
+            if (tank.bot instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not close the bot of client " + tank.id, e);
+                }
+            }
+        }
+        return result();
+    }
+
+    private MatchResult result() {
+        int aliveA = aliveCount(0);
+        int aliveB = aliveCount(1);
+        float healthA = totalHealth(0);
+        float healthB = totalHealth(1);
+        int winner;
+        if (aliveA != aliveB) {
+            winner = aliveA > aliveB ? 0 : 1;
+        } else if (healthA != healthB) {
+            winner = healthA > healthB ? 0 : 1;
+        } else {
+            winner = -1;
+        }
+
+        float[] damage = new float[2];
+        int[] shots = new int[2];
+        int[] hits = new int[2];
+        for (SimTank tank : tanks) {
+            damage[tank.team] += tank.damageDealt;
+            shots[tank.team] += tank.shots;
+            hits[tank.team] += tank.hits;
+        }
+        return new MatchResult(config.seed(), winner, tick, aliveA, aliveB, healthA, healthB,
+                damage[0], damage[1], shots[0], shots[1], hits[0], hits[1]);
+    }
+
+    private int aliveCount(int team) {
+        int count = 0;
+        for (SimTank tank : tanks) {
+            if (tank.team == team && tank.alive) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private float totalHealth(int team) {
+        float health = 0;
+        for (SimTank tank : tanks) {
+            if (tank.team == team) {
+                health += Math.max(0, tank.health);
+            }
+        }
+        return health;
+    }
+
+    /// Publishes the tanks' states, only building new ones for tanks that moved, took damage or died.
+    private void refreshStates() {
+        for (SimTank tank : tanks) {
+            if (tank.state != null && tank.stateX == tank.x && tank.stateY == tank.y && tank.stateZ == tank.z
+                    && tank.stateHealth == tank.health && tank.stateAlive == tank.alive) {
+                continue;
+            }
+            tank.stateX = tank.x;
+            tank.stateY = tank.y;
+            tank.stateZ = tank.z;
+            tank.stateHealth = tank.health;
+            tank.stateAlive = tank.alive;
+            tank.state = tank.stateBuilder
+                    .set(ClientState::state, tank.alive ? ClientState.PlayerState.ALIVE : ClientState.PlayerState.DEAD)
+                    .set(ClientState::transformBody, Transform.builder().translation(new Vec3(tank.x, tank.y, tank.z)).build())
+                    .setNumber(ClientState::currentHealth, Math.max(0, tank.health))
+                    .build();
+        }
+    }
+
+    private void stepShells() {
+        for (int i = shells.size() - 1; i >= 0; i--) {
+            Shell shell = shells.get(i);
+            shell.vy -= stats.projectileGravity() * dt;
+            shell.x += shell.vx * dt;
+            shell.y += shell.vy * dt;
+            shell.z += shell.vz * dt;
+            shell.lifetime--;
+
+            boolean done = shell.lifetime <= 0 || shell.x < 0 || shell.z < 0 || shell.x >= width || shell.z >= depth
+                    || shell.y < groundHeight(shell.x, shell.z);
+            if (!done) {
+                SimTank target = tankAt(shell);
+                if (target != null) {
+                    hit(shell, target);
+                    done = true;
+                }
+            }
+            if (done) {
+                shells.set(i, shells.getLast());
+                shells.removeLast();
+            }
+        }
+    }
+
+    private SimTank tankAt(Shell shell) {
+        float halfExtent = Math.max(stats.sizeX(), stats.sizeZ()) / 2;
+        for (SimTank tank : tanks) {
+            if (!tank.alive || tank.team == shell.owner.team) {
+                continue;
+            }
+            if (Math.abs(shell.x - tank.x) <= halfExtent && Math.abs(shell.z - tank.z) <= halfExtent
+                    && shell.y >= tank.y && shell.y <= tank.y + stats.sizeY()) {
+                return tank;
+            }
+        }
+        return null;
+    }
+
+    private void hit(Shell shell, SimTank target) {
+        // Which side of the target faces the shell, in the target's body frame
+        float dx = shell.x - target.x;
+        float dz = shell.z - target.z;
+        float forward = dx * (float) Math.cos(target.bodyYaw) + dz * (float) Math.sin(target.bodyYaw);
+        float right = dx * (float) Math.sin(target.bodyYaw) - dz * (float) Math.cos(target.bodyYaw);
+        Side side = Math.abs(forward) >= Math.abs(right)
+                ? (forward >= 0 ? Side.FRONT : Side.BACK)
+                : (right >= 0 ? Side.RIGHT : Side.LEFT);
+
+        float damage = stats.projectileDamage() * (1 - stats.armor(side));
+        target.health -= damage;
+        if (target.health <= 0) {
+            target.alive = false;
+        }
+        shell.owner.hits++;
+        shell.owner.damageDealt += damage;
+
+        Hit hitMessage = hitBuilder
+                .setNumber(Hit::hitEntity, target.id)
+                .setUnchecked(Hit::hitSide, hitSides[side.ordinal()])
+                .setNumber(Hit::damageDealt, damage)
+                .build();
+        shell.owner.nextInbox.add(new MessageContainer(CLIENT.get(shell.owner.id), hitMessage));
+
+        GotHit gotHitMessage = gotHitBuilder
+                .setNumber(GotHit::shooterEntity, shell.owner.id)
+                .setUnchecked(GotHit::hitSide, hitSides[side.ordinal()])
+                .setNumber(GotHit::damageReceived, damage)
+                .build();
+        target.nextInbox.add(new MessageContainer(CLIENT.get(target.id), gotHitMessage));
+    }
+
+    private float groundHeight(float x, float z) {
+        return tiles.height(tiles.tileX(x), tiles.tileZ(z));
+    }
+
+    /// Keeps a coordinate on the tiles `0 .. tileCount - 1`.
+    private float clampToMap(float coordinate, int tileCount) {
+        float min = tiles.tileCenter(0) - 0.5f;
+        return Math.max(min, Math.min(min + tileCount - 0.001f, coordinate));
+    }
+
+    private static float rotateTowards(float current, float target, float maxStep) {
+        float difference = (float) Math.IEEEremainder(target - current, Math.PI * 2);
+        return current + Math.max(-maxStep, Math.min(maxStep, difference));
+    }
+
+    /// Creates the bot for one slot of a team.
+    @FunctionalInterface
+    public interface BotFactory {
+        BotInterface create(BotProfile profile);
+    }
+
+    public enum Side {
+        FRONT,
+        BACK,
+        LEFT,
+        RIGHT
+    }
+
+    private static final class Shell {
+        SimTank owner;
+        float x, y, z;
+        float vx, vy, vz;
+        int lifetime;
+    }
+
+    private final class SimTank {
+        final long id;
+        final int team;
+        final BotInterface bot;
+        GameConfig gameConfig;
+        PublicGameWorld world;
+        Tank tankProxy;
+        ClientState state;
+        RecordFactory.Builder<ClientState> stateBuilder;
+        // What the published state was built from
+        float stateX, stateY, stateZ, stateHealth;
+        boolean stateAlive;
+        List<MessageContainer> inbox = new ArrayList<>();
+        List<MessageContainer> nextInbox = new ArrayList<>();
+
+        float x, y, z;
+        float bodyYaw;
+        float turretYaw;
+        float turretPitch;
+        float health;
+        boolean alive = true;
+        int cooldown;
+
+        // Commands of the current tick
+        int moveDirection;
+        Vec3 moveTarget;
+        float bodyRotation;
+        Vec3 turretTarget;
+        boolean shootRequested;
+
+        int shots;
+        int hits;
+        float damageDealt;
+
+        SimTank(long id, int team, BotInterface bot) {
+            this.id = id;
+            this.team = team;
+            this.bot = bot;
+        }
+
+        /// Shells leave the turret at half the tank's height, where the bot assumes its muzzle.
+        float muzzleY() {
+            return y + stats.sizeY() / 2;
+        }
+
+        Object handleWorld(Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "getGameConfig" -> gameConfig;
+                case "getMyState" -> state;
+                case "getClientState" -> {
+                    SimTank other = tanksById.get(((Number) args[0]).longValue());
+                    yield other == null ? null : other.state;
+                }
+                case "getTank" -> tankProxy;
+                case "getTankConfig" -> Optional.of(tankConfig);
+                case "getConnectedClientConfig" -> clients.stream()
+                        .filter(client -> client.clientId() == ((Number) args[0]).longValue())
+                        .findFirst();
+                case "getIncomingMessages" -> args == null || args.length == 0
+                        ? inbox
+                        : inbox.stream().filter(message -> ((Class<?>) args[0]).isInstance(message.getMessage())).toList();
+                case "isDebug" -> false;
+                case "getTick" -> (long) tick;
+                default -> OfflineProxies.defaultReturn(method);
+            };
+        }
+
+        Object handleTank(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getConfig" -> {
+                    return tankConfig;
+                }
+                case "moveTowards" -> {
+                    moveDirection = isBackward(args[1]) ? -1 : 1;
+                    moveTarget = (Vec3) args[2];
+                }
+                case "move" -> {
+                    moveDirection = isBackward(args[1]) ? -1 : 1;
+                    moveTarget = null;
+                }
+                case "rotateBody" -> bodyRotation = ((Number) args[1]).floatValue();
+                case "rotateTurretTowards" -> turretTarget = (Vec3) args[1];
+                case "canShoot" -> {
+                    return alive && cooldown <= 0;
+                }
+                case "shoot" -> {
+                    if (!alive || cooldown > 0) {
+                        return false;
+                    }
+                    shootRequested = true;
+                    return true;
+                }
+                default -> {
+                }
+            }
+            return OfflineProxies.defaultReturn(method);
+        }
+
+        private boolean isBackward(Object direction) {
+            return direction instanceof Enum<?> value && value.name().equals("BACKWARD");
+        }
+
+        void applyCommands() {
+            float maxBodyStep = stats.bodyRotationSpeed() * dt;
+            if (moveTarget != null) {
+                // Face the target, then drive forwards or backwards
+                float desiredYaw = (float) Math.atan2(moveTarget.getZ() - z, moveTarget.getX() - x);
+                bodyYaw = rotateTowards(bodyYaw, desiredYaw, maxBodyStep);
+            } else {
+                bodyYaw += Math.max(-maxBodyStep, Math.min(maxBodyStep, bodyRotation * dt));
+            }
+
+            if (moveDirection != 0) {
+                float step = moveDirection * stats.moveSpeed() * dt;
+                x = clampToMap(x + (float) Math.cos(bodyYaw) * step, width);
+                z = clampToMap(z + (float) Math.sin(bodyYaw) * step, depth);
+                y = groundHeight(x, z);
+            }
+
+            if (turretTarget != null) {
+                float dx = (float) turretTarget.getX() - x;
+                float dz = (float) turretTarget.getZ() - z;
+                float desiredYaw = (float) Math.atan2(dz, dx);
+                float desiredPitch = (float) -Math.atan2(turretTarget.getY() - muzzleY(), Math.sqrt(dx * dx + dz * dz));
+                desiredPitch = Math.max(stats.turretMinPitch(), Math.min(stats.turretMaxPitch(), desiredPitch));
+                turretYaw = rotateTowards(turretYaw, desiredYaw, stats.turretYawRotationSpeed() * dt);
+                float maxPitchStep = stats.turretPitchRotationSpeed() * dt;
+                turretPitch += Math.max(-maxPitchStep, Math.min(maxPitchStep, desiredPitch - turretPitch));
+            }
+
+            if (cooldown > 0) {
+                cooldown--;
+            }
+            if (shootRequested && cooldown <= 0) {
+                Shell shell = new Shell();
+                shell.owner = this;
+                shell.x = x;
+                shell.y = muzzleY();
+                shell.z = z;
+                float horizontalSpeed = stats.projectileSpeed() * (float) Math.cos(turretPitch);
+                shell.vx = horizontalSpeed * (float) Math.cos(turretYaw);
+                shell.vz = horizontalSpeed * (float) Math.sin(turretYaw);
+                shell.vy = -stats.projectileSpeed() * (float) Math.sin(turretPitch);
+                shell.lifetime = stats.projectileLifetimeTicks();
+                shells.add(shell);
+                cooldown = stats.shootCooldownTicks();
+                shots++;
+            }
+        }
+
+        void clearCommands() {
+            moveDirection = 0;
+            moveTarget = null;
+            bodyRotation = 0;
+            turretTarget = null;
+            shootRequested = false;
+        }
+    }
+}
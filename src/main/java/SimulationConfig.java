@@ -0,0 +1,39 @@
+import java.util.Random;
+
+/// Setup of one simulated match.
+///
+/// @param heights        tile heights, indexed `heights[z][x]`
+/// @param tickRate       server ticks per second
+/// @param playersPerTeam tanks on each of the two teams
+/// @param maxTicks       the match ends in a draw (decided by remaining health) after this many ticks
+/// @param seed           seed for spawn positions, the same seed always plays out the same match
+public record SimulationConfig(
+        float[][] heights,
+        float tickRate,
+        int playersPerTeam,
+        int maxTicks,
+        long seed,
+        SimTankStats tank
+) {
+    /// A match on a generated hilly map.
+    public static SimulationConfig randomMap(int mapSize, int playersPerTeam, long seed) {
+        Random random = new Random(seed);
+        double phaseX = random.nextDouble() * Math.PI * 2;
+        double phaseZ = random.nextDouble() * Math.PI * 2;
+        float[][] heights = new float[mapSize][mapSize];
+        for (int z = 0; z < mapSize; z++) {
+            for (int x = 0; x < mapSize; x++) {
+                heights[z][x] = (float) (1.5 + Math.sin(x * 0.35 + phaseX) * Math.cos(z * 0.25 + phaseZ) * 1.5);
+            }
+        }
+        return new SimulationConfig(heights, 60, playersPerTeam, 60 * 180, seed, SimTankStats.lightTank());
+    }
+
+    public int width() {
+        return heights.length == 0 ? 0 : heights[0].length;
+    }
+
+    public int depth() {
+        return heights.length;
+    }
+}
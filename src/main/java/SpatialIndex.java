@@ -0,0 +1,191 @@
+import dev.zwazel.internal.PublicGameWorld;
+import dev.zwazel.internal.connection.client.ConnectedClientConfig;
+import dev.zwazel.internal.game.state.ClientState;
+import dev.zwazel.internal.game.transform.Vec3;
+
+import java.util.Arrays;
+import java.util.List;
+
+/// Per-tick snapshot of tank positions in a uniform grid laid over the map's tile grid.
+///
+/// [#rebuild(PublicGameWorld, List)] looks every client's state up once and stores the positions in flat arrays;
+/// each grid cell keeps a singly linked list of the entries inside it (`cellHead` / `next`).
+/// Queries only visit the cells that can contain a match and write entry indices into caller-provided
+/// arrays, so nothing is allocated after the first rebuild. Use [#state(int)] to get the [ClientState] of an entry.
+///
+/// Distances are 3D, like [Vec3#distance(Vec3)]; the grid prunes on the horizontal distance, which is never larger.
+public final class SpatialIndex {
+    private final int cellsX;
+    private final int cellsZ;
+    private final float cellSize;
+    private final int[] cellHead;
+
+    private int size;
+    private float[] x = new float[8];
+    private float[] y = new float[8];
+    private float[] z = new float[8];
+    private int[] next = new int[8];
+    private long[] ids = new long[8];
+    private ClientState[] states = new ClientState[8];
+
+    // Scratch space for nearestK
+    private float[] nearestDistances = new float[8];
+
+    /// @param mapWidth  map width in tiles
+    /// @param mapDepth  map depth in tiles
+    /// @param cellSize  edge length of a grid cell, in tiles
+    public SpatialIndex(int mapWidth, int mapDepth, float cellSize) {
+        this.cellSize = cellSize;
+        this.cellsX = Math.max(1, (int) Math.ceil(mapWidth / cellSize));
+        this.cellsZ = Math.max(1, (int) Math.ceil(mapDepth / cellSize));
+        this.cellHead = new int[cellsX * cellsZ];
+        Arrays.fill(cellHead, -1);
+    }
+
+    /// Replaces the contents with the current states of the given clients.
+    /// Clients without a state, without a position or that are dead are left out.
+    public void rebuild(PublicGameWorld world, List<ConnectedClientConfig> clients) {
+        for (int i = 0; i < size; i++) {
+            cellHead[cellOf(x[i], z[i])] = -1;
+            states[i] = null;
+        }
+        size = 0;
+
+        for (int i = 0, count = clients.size(); i < count; i++) {
+            ClientState state = world.getClientState(clients.get(i).clientId());
+            if (state == null || state.state() == ClientState.PlayerState.DEAD) {
+                continue;
+            }
+            Vec3 position = state.transformBody().getTranslation();
+            if (position != null) {
+                add(clients.get(i).clientId(), state, position);
+            }
+        }
+    }
+
+    private void add(long id, ClientState state, Vec3 position) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            next = Arrays.copyOf(next, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            states = Arrays.copyOf(states, capacity);
+        }
+
+        int index = size++;
+        x[index] = (float) position.getX();
+        y[index] = (float) position.getY();
+        z[index] = (float) position.getZ();
+        ids[index] = id;
+        states[index] = state;
+
+        int cell = cellOf(x[index], z[index]);
+        next[index] = cellHead[cell];
+        cellHead[cell] = index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ClientState state(int index) {
+        return states[index];
+    }
+
+    /// Client id of the entry.
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public float x(int index) {
+        return x[index];
+    }
+
+    public float y(int index) {
+        return y[index];
+    }
+
+    public float z(int index) {
+        return z[index];
+    }
+
+    /// The `k` entries closest to the given point, closest first.
+    ///
+    /// @param out receives the entry indices, at least `k` long
+    /// @return the number of entries written, at most `k`
+    public int nearestK(float fromX, float fromY, float fromZ, int k, int[] out) {
+        if (size == 0 || k <= 0) {
+            return 0;
+        }
+        if (nearestDistances.length < k) {
+            nearestDistances = new float[k];
+        }
+
+        int found = 0;
+        int centerX = cellCoordinate(fromX, cellsX);
+        int centerZ = cellCoordinate(fromZ, cellsZ);
+        int maxRing = Math.max(cellsX, cellsZ);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Everything outside this ring is at least this far away horizontally
+            float ringDistance = Math.max(0, (ring - 1) * cellSize);
+            if (found == k && ringDistance * ringDistance > nearestDistances[k - 1]) {
+                break;
+            }
+
+            for (int cz = centerZ - ring; cz <= centerZ + ring; cz++) {
+                if (cz < 0 || cz >= cellsZ) {
+                    continue;
+                }
+                boolean edgeRow = cz == centerZ - ring || cz == centerZ + ring;
+                for (int cx = centerX - ring; cx <= centerX + ring; cx += edgeRow ? 1 : 2 * ring) {
+                    if (cx >= 0 && cx < cellsX) {
+                        found = collectNearest(cellHead[cx + cz * cellsX], fromX, fromY, fromZ, k, out, found);
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /// Insertion into the sorted top-k list.
+    private int collectNearest(int entry, float fromX, float fromY, float fromZ, int k, int[] out, int found) {
+        for (; entry != -1; entry = next[entry]) {
+            float distance = distanceSquared(entry, fromX, fromY, fromZ);
+            if (found == k && distance >= nearestDistances[k - 1]) {
+                continue;
+            }
+
+            int position = found < k ? found++ : k - 1;
+            while (position > 0 && nearestDistances[position - 1] > distance) {
+                nearestDistances[position] = nearestDistances[position - 1];
+                out[position] = out[position - 1];
+                position--;
+            }
+            nearestDistances[position] = distance;
+            out[position] = entry;
+        }
+        return found;
+    }
+
+    private float distanceSquared(int index, float fromX, float fromY, float fromZ) {
+        float dx = x[index] - fromX;
+        float dy = y[index] - fromY;
+        float dz = z[index] - fromZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private int cellOf(float worldX, float worldZ) {
+        return cellCoordinate(worldX, cellsX) + cellCoordinate(worldZ, cellsZ) * cellsX;
+    }
+
+    /// Positions outside the map are clamped into the border cells.
+    private int cellCoordinate(float value, int cells) {
+        int cell = (int) Math.floor(value / cellSize);
+        return Math.max(0, Math.min(cells - 1, cell));
+    }
+}
@@ -0,0 +1,235 @@
+import dev.zwazel.PropertyHandler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Measures how long each tick (and each phase of it) takes, compared to the server tick interval.
+///
+/// Phase durations go into lock-free [LatencyHistogram]s, the bytes allocated by the tick thread are taken from
+/// the [com.sun.management.ThreadMXBean]. Ticks that take longer than the budget are counted as overruns.
+/// Percentiles are appended to a CSV file periodically by a daemon thread, never on the tick thread.
+/// Every bot has its own profiler and file, so bots hosted in one process don't write into each other's file.
+///
+/// Configured in `app.properties`:
+/// - `debug.profiler.enabled`: `true` to measure, anything else turns every call into a no-op
+/// - `debug.profiler.tickBudgetMs`: budget per tick, defaults to the server tick interval
+/// - `debug.profiler.exportFile`: CSV file the percentiles are appended to, with the bot name added to the file
+///   name: `tick-profile.csv` becomes `tick-profile-<bot name>.csv`
+/// - `debug.profiler.exportIntervalSeconds`: how often to export
+///
+/// Usage on the tick thread:
+/// ```java
+/// profiler.beginTick();
+/// long start = profiler.start();
+/// ... // work
+/// profiler.end(TickProfiler.Phase.TARGETING, start);
+/// profiler.endTick();
+///```
+/// [#close()] stops the export once the bot is done.
+public final class TickProfiler implements AutoCloseable {
+    private final boolean enabled;
+    private final String botName;
+    private final Path exportFile;
+    private final long exportIntervalSeconds;
+    private final EnumMap<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final LatencyHistogram allocatedBytes = new LatencyHistogram();
+    private final AtomicLong overruns = new AtomicLong();
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private long tickBudgetNanos;
+    private long tickStartNanos;
+    private long tickStartAllocatedBytes;
+    private ScheduledExecutorService exporter;
+
+    public TickProfiler(String botName, boolean enabled, long tickBudgetNanos, Path exportFile,
+                        long exportIntervalSeconds) {
+        this.botName = botName;
+        this.enabled = enabled;
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.exportFile = exportFile;
+        this.exportIntervalSeconds = exportIntervalSeconds;
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+
+        com.sun.management.ThreadMXBean bean = null;
+        if (enabled && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            bean = sunBean;
+        }
+        this.threadBean = bean;
+    }
+
+    /// Creates the profiler of one bot from the `debug.profiler.*` properties. The budget is `0` (unset) if not
+    /// configured, call [#setDefaultTickBudget(double)] once the tick rate is known.
+    public static TickProfiler fromProperties(PropertyHandler properties, String botName) {
+        boolean enabled = Boolean.parseBoolean(properties.getProperty("debug.profiler.enabled"));
+        long budgetNanos = Optional.ofNullable(properties.getProperty("debug.profiler.tickBudgetMs"))
+                .filter(value -> !value.isBlank())
+                .map(value -> (long) (Double.parseDouble(value) * 1_000_000))
+                .orElse(0L);
+        Path exportFile = Path.of(Optional.ofNullable(properties.getProperty("debug.profiler.exportFile"))
+                .orElse("tick-profile.csv"));
+        long interval = Optional.ofNullable(properties.getProperty("debug.profiler.exportIntervalSeconds"))
+                .map(Long::parseLong)
+                .orElse(10L);
+        return new TickProfiler(botName, enabled, budgetNanos, perBotFile(exportFile, botName), interval);
+    }
+
+    /// A profiler that measures nothing, e.g. for simulated matches.
+    public static TickProfiler disabled(String botName) {
+        return new TickProfiler(botName, false, 0, null, 0);
+    }
+
+    /// `tick-profile.csv` -> `tick-profile-<botName>.csv`
+    private static Path perBotFile(Path file, String botName) {
+        String name = file.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        String perBot = extension > 0
+                ? name.substring(0, extension) + "-" + botName + name.substring(extension)
+                : name + "-" + botName;
+        return file.resolveSibling(perBot);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /// Uses one server tick interval as budget, unless a budget was configured.
+    public void setDefaultTickBudget(double tickRate) {
+        if (tickBudgetNanos <= 0 && tickRate > 0) {
+            tickBudgetNanos = (long) (1_000_000_000L / tickRate);
+        }
+    }
+
+    /// Starts the periodic export. Does nothing if disabled or already started.
+    public synchronized void startExport() {
+        if (!enabled || exporter != null) {
+            return;
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tick-profiler-export-" + botName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(this::export, exportIntervalSeconds, exportIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /// Stops the periodic export and exports what was measured since the last one.
+    @Override
+    public synchronized void close() {
+        if (exporter == null) {
+            return;
+        }
+        exporter.shutdown();
+        try {
+            exporter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exporter = null;
+        export();
+    }
+
+    public void beginTick() {
+        if (!enabled) {
+            return;
+        }
+        tickStartNanos = System.nanoTime();
+        if (threadBean != null) {
+            tickStartAllocatedBytes = threadBean.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    public void endTick() {
+        if (!enabled) {
+            return;
+        }
+        long duration = System.nanoTime() - tickStartNanos;
+        histograms.get(Phase.TOTAL).record(duration);
+        if (threadBean != null) {
+            allocatedBytes.record(threadBean.getCurrentThreadAllocatedBytes() - tickStartAllocatedBytes);
+        }
+        if (tickBudgetNanos > 0 && duration > tickBudgetNanos) {
+            // Rate limited by the log, the export has the full numbers
+            EventLog.shared().log(EventLog.Type.TICK_OVERRUN, botName, duration, tickBudgetNanos, overruns.incrementAndGet());
+        }
+    }
+
+    /// Timestamp to pass to [#end(Phase, long)], or `0` if disabled.
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void end(Phase phase, long start) {
+        if (enabled) {
+            histograms.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public LatencyHistogram getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /// Appends the current percentiles to the export file and starts a new interval.
+    public void export() {
+        StringBuilder csv = new StringBuilder();
+        String timestamp = Instant.now().toString();
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            appendRow(csv, timestamp, botName, entry.getKey().name().toLowerCase() + "_ns", entry.getValue());
+        }
+        appendRow(csv, timestamp, botName, "allocated_bytes", allocatedBytes);
+        csv.append(timestamp).append(',').append(botName).append(",overruns,").append(overruns.get()).append('\n');
+
+        try {
+            boolean writeHeader = Files.notExists(exportFile);
+            if (writeHeader) {
+                csv.insert(0, "timestamp,bot,metric,count,p50,p90,p99,p99.9,max\n");
+            }
+            Files.writeString(exportFile, csv, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Could not export tick profile to " + exportFile + ": " + e.getMessage());
+        }
+    }
+
+    private static void appendRow(StringBuilder csv, String timestamp, String botName, String metric, LatencyHistogram histogram) {
+        csv.append(timestamp).append(',').append(botName).append(',').append(metric).append(',')
+                .append(histogram.totalCount()).append(',')
+                .append(histogram.percentile(50)).append(',')
+                .append(histogram.percentile(90)).append(',')
+                .append(histogram.percentile(99)).append(',')
+                .append(histogram.percentile(99.9)).append(',')
+                .append(histogram.max()).append('\n');
+        histogram.reset();
+    }
+
+    public enum Phase {
+        GRAPH,
+        TARGETING,
+        /// Handing the snapshot to the [BackgroundPlanner] and reading its latest plan
+        PLANNING,
+        MOVEMENT,
+        MESSAGING,
+        TOTAL
+    }
+}
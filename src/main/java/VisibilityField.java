@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/// Precomputed line of sight and cover for every tile of a map.
+///
+/// For every tile, a bitset records which tiles within [#RADIUS] it can see: bit
+/// `(dz + RADIUS) * WINDOW + (dx + RADIUS)` of the tile's [#WINDOW] x [#WINDOW] window. The line of sight runs
+/// between points [#EYE_HEIGHT] above the two tile centers ([NavigationGraph#tileCenter(int)])
+/// and is blocked by terrain (see [LineOfFire#isLineBlocked]).
+/// The cover of a tile is the fraction of tiles in its window that can *not* see it, i.e. how safe it is from
+/// direct fire. `1` is complete cover.
+///
+/// Computing the field takes a while on large maps, so it runs once per map (in parallel over the tiles) and is
+/// written to a file named after the map name, content hash and size. Later starts map that file read-only and read
+/// the bits straight out of it, without copying. A 32-bit hash can collide, so like the [NavigationGraph] cache, a
+/// file is only used if the dimensions, tile mapping and every tile height stored in it match the map exactly;
+/// otherwise it is computed again. Within one process the field is shared between all bots that use the same
+/// graph: bots that ask for the same map at once wait for the same computation.
+///
+/// File layout (little endian): a [#HEADER_BYTES] header, then `nodeCount * wordsPerTile` longs of visibility bits,
+/// then one cover byte per tile (`0..255`), then the `nodeCount` tile heights the field was computed for.
+public final class VisibilityField {
+    public static final int RADIUS = 16;
+    public static final int WINDOW = 2 * RADIUS + 1;
+    public static final float EYE_HEIGHT = 1f;
+
+    private static final int MAGIC = 0x56495346; // "VISF"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int WORDS_PER_TILE = (WINDOW * WINDOW + 63) / 64;
+    private static final ConcurrentHashMap<CacheKey, CompletableFuture<VisibilityField>> CACHE = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int depth;
+    private final LongBuffer visibility;
+    private final ByteBuffer cover;
+
+    private VisibilityField(int width, int depth, ByteBuffer file) {
+        this.width = width;
+        this.depth = depth;
+        int nodeCount = width * depth;
+        int visibilityBytes = nodeCount * WORDS_PER_TILE * Long.BYTES;
+        this.visibility = file.slice(HEADER_BYTES, visibilityBytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        this.cover = file.slice(HEADER_BYTES + visibilityBytes, nodeCount);
+    }
+
+    /// Loads the field for the given map in the background: from this process' cache, from the cache file in
+    /// `directory`, or freshly computed (and written to `directory`). A failed load is not cached, so the next
+    /// call tries again.
+    ///
+    /// @param mapName the lobby's map name (`lobby.map.name`), to keep the cache files apart
+    public static CompletableFuture<VisibilityField> load(Path directory, String mapName, NavigationGraph graph) {
+        Path file = directory.resolve("%s-%08x-%dx%d.vis".formatted(
+                mapName.replaceAll("[^A-Za-z0-9_.-]", "_"), graph.contentHash(), graph.width(), graph.depth()));
+        CacheKey cacheKey = new CacheKey(file, graph);
+        CompletableFuture<VisibilityField> future = CACHE.computeIfAbsent(cacheKey,
+                key -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readOrCompute(file, graph);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        future.whenComplete((field, e) -> {
+            if (e != null) {
+                CACHE.remove(cacheKey, future);
+            }
+        });
+        return future;
+    }
+
+    private static VisibilityField readOrCompute(Path file, NavigationGraph graph) throws IOException {
+        try {
+            VisibilityField field = Files.exists(file) ? map(file, graph) : null;
+            if (field != null) {
+                return field;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable visibility cache " + file + ": " + e.getMessage());
+        }
+        return compute(file, graph);
+    }
+
+    /// Maps an existing cache file, or returns `null` if it doesn't belong to this graph or format.
+    private static VisibilityField map(Path file, NavigationGraph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            boolean matches = channel.size() == fileSize(graph)
+                    && buffer.getInt(0) == MAGIC
+                    && buffer.getInt(4) == FORMAT_VERSION
+                    && buffer.getInt(8) == graph.width()
+                    && buffer.getInt(12) == graph.depth()
+                    && buffer.getInt(16) == RADIUS
+                    && buffer.getFloat(20) == EYE_HEIGHT
+                    && buffer.getInt(24) == graph.contentHash()
+                    && buffer.getFloat(28) == graph.tileShift()
+                    && sameHeights(buffer, graph);
+            // The mapping stays valid after the channel is closed
+            return matches ? new VisibilityField(graph.width(), graph.depth(), buffer) : null;
+        }
+    }
+
+    /// Computes the field in memory, writes it to a temporary file next to `file` and moves that into place once
+    /// complete, so other processes never see a half-written file. The temporary file is written, not mapped:
+    /// a mapped file can't be moved on Windows until the mapping is garbage collected.
+    private static VisibilityField compute(Path file, NavigationGraph graph) throws IOException {
+        long size = fileSize(graph);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Visibility field of a " + graph.width() + "x" + graph.depth() + " map is too large");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC)
+                .putInt(4, FORMAT_VERSION)
+                .putInt(8, graph.width())
+                .putInt(12, graph.depth())
+                .putInt(16, RADIUS)
+                .putFloat(20, EYE_HEIGHT)
+                .putInt(24, graph.contentHash())
+                .putFloat(28, graph.tileShift());
+        float[] heights = graph.heights();
+        for (int i = 0, offset = (int) heightsOffset(graph); i < heights.length; i++) {
+            buffer.putFloat(offset + i * Float.BYTES, heights[i]);
+        }
+        new VisibilityField(graph.width(), graph.depth(), buffer).fill(graph);
+
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return map(file, graph);
+    }
+
+    private static long fileSize(NavigationGraph graph) {
+        return heightsOffset(graph) + (long) graph.nodeCount() * Float.BYTES;
+    }
+
+    private static long heightsOffset(NavigationGraph graph) {
+        long nodeCount = graph.nodeCount();
+        return HEADER_BYTES + nodeCount * WORDS_PER_TILE * Long.BYTES + nodeCount;
+    }
+
+    /// Whether the file was computed for exactly these tile heights, compared like [java.util.Arrays#equals].
+    private static boolean sameHeights(ByteBuffer buffer, NavigationGraph graph) {
+        float[] heights = graph.heights();
+        // Only called once the file size matched, so the offset fits into an int
+        int offset = (int) heightsOffset(graph);
+        for (int i = 0; i < heights.length; i++) {
+            if (Float.floatToIntBits(buffer.getFloat(offset + i * Float.BYTES)) != Float.floatToIntBits(heights[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// Every tile only writes its own words and cover byte, so the tiles can be processed in parallel.
+    private void fill(NavigationGraph graph) {
+        LineOfFire lineOfFire = new LineOfFire(graph);
+        IntStream.range(0, graph.nodeCount()).parallel().forEach(node -> {
+            int x = graph.nodeX(node);
+            int z = graph.nodeZ(node);
+            float eyeY = graph.height(x, z) + EYE_HEIGHT;
+            int inWindow = 0;
+            int visible = 0;
+            long word = 0;
+            int wordIndex = 0;
+
+            for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+                for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+                    int bit = (dz + RADIUS) * WINDOW + (dx + RADIUS);
+                    if (bit / 64 != wordIndex) {
+                        visibility.put(node * WORDS_PER_TILE + wordIndex, word);
+                        word = 0;
+                        wordIndex = bit / 64;
+                    }
+
+                    int otherX = x + dx;
+                    int otherZ = z + dz;
+                    if (!graph.contains(otherX, otherZ) || (dx == 0 && dz == 0)) {
+                        continue;
+                    }
+                    inWindow++;
+                    float otherEyeY = graph.height(otherX, otherZ) + EYE_HEIGHT;
+                    if (!lineOfFire.isLineBlocked(graph.tileCenter(x), eyeY, graph.tileCenter(z),
+                            graph.tileCenter(otherX), otherEyeY, graph.tileCenter(otherZ))) {
+                        word |= 1L << (bit & 63);
+                        visible++;
+                    }
+                }
+            }
+            visibility.put(node * WORDS_PER_TILE + wordIndex, word);
+
+            float coverScore = inWindow == 0 ? 1 : 1 - (float) visible / inWindow;
+            cover.put(node, (byte) Math.round(coverScore * 255));
+        });
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /// Whether the two tiles can see each other. Tiles further than [#RADIUS] apart (on either axis) count as
+    /// not visible.
+    public boolean isVisible(int fromX, int fromZ, int toX, int toZ) {
+        int dx = toX - fromX;
+        int dz = toZ - fromZ;
+        if (Math.abs(dx) > RADIUS || Math.abs(dz) > RADIUS || !contains(fromX, fromZ) || !contains(toX, toZ)) {
+            return false;
+        }
+        int bit = (dz + RADIUS) * WINDOW + (dx + RADIUS);
+        long word = visibility.get((fromX + fromZ * width) * WORDS_PER_TILE + bit / 64);
+        return (word & (1L << (bit & 63))) != 0;
+    }
+
+    /// How safe the tile is from direct fire, from `0` (seen from every tile around it) to `1` (seen from none).
+    public float cover(int x, int z) {
+        return contains(x, z) ? (cover.get(x + z * width) & 0xFF) / 255f : 0;
+    }
+
+    private boolean contains(int x, int z) {
+        return x >= 0 && z >= 0 && x < width && z < depth;
+    }
+
+    /// Graphs are compared by identity: [NavigationGraph#of] hands out one graph per map content.
+    private record CacheKey(Path file, NavigationGraph graph) {
+    }
+}
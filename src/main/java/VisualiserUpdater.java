@@ -0,0 +1,76 @@
+import dev.zwazel.internal.debug.MapVisualiser;
+import dev.zwazel.internal.game.utils.Graph;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/// Pushes path and graph changes to the [MapVisualiser] from its own virtual thread, at most once per interval.
+///
+/// The tick thread only compares the plan's path and the graph with the ones it handed over last time (by
+/// identity, the [BackgroundPlanner] keeps the same path array until it finds a new path) and, if something changed,
+/// drops the new state into a single-slot mailbox. Converting the path into library nodes and updating the
+/// visualiser happen on the updater's thread; changes that arrive faster than the interval are coalesced.
+public final class VisualiserUpdater implements AutoCloseable {
+    private final MapVisualiser visualiser;
+    private final long intervalMillis;
+    private final AtomicReference<Update> pending = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Only touched by the tick thread
+    private int[] submittedPath;
+    private Graph submittedGraph;
+
+    public VisualiserUpdater(MapVisualiser visualiser, String name, long intervalMillis) {
+        this.visualiser = visualiser;
+        this.intervalMillis = intervalMillis;
+        this.thread = Thread.ofVirtual().name("visualiser-" + name).start(this::run);
+    }
+
+    /// Hands over the plan's path if it or the graph changed since the last call. Never blocks.
+    public void update(Plan plan, NavigationGraph graph, Graph visualGraph) {
+        if (plan.path() == submittedPath && visualGraph == submittedGraph) {
+            return;
+        }
+        submittedPath = plan.path();
+        submittedGraph = visualGraph;
+        pending.set(new Update(plan, graph, visualGraph));
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        Graph shownGraph = null;
+        while (running) {
+            Update update = pending.getAndSet(null);
+            if (update == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                if (update.visualGraph() != shownGraph) {
+                    visualiser.setGraph(update.visualGraph());
+                    shownGraph = update.visualGraph();
+                }
+                visualiser.setPath(update.plan().toNodePath(update.graph(), update.visualGraph()));
+            } catch (RuntimeException e) {
+                System.err.println("Could not update the visualiser: " + e);
+            }
+
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private record Update(Plan plan, NavigationGraph graph, Graph visualGraph) {
+    }
+}